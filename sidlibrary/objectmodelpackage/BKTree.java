@@ -0,0 +1,122 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller tree over lowercased terms under Levenshtein distance.
+ * Each term carries the title ids it came from, per field. A query within
+ * distance n only descends into children whose edge distance is within n of
+ * the distance to the current term (triangle inequality), so a search visits
+ * a small part of the tree instead of every title.
+ */
+public class BKTree {
+    private Node root;
+
+    public void add(String term, int field, int titleId) {
+        if (term == null || term.isEmpty()) return;
+        if (root == null) {
+            root = new Node(term);
+            root.add(field, titleId);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(term, node.term);
+            if (distance == 0) {
+                node.add(field, titleId);
+                return;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                child = new Node(term);
+                child.add(field, titleId);
+                node.children.put(distance, child);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    // Every term within maxDistance of the query, with its distance
+    public List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null || query == null) return matches;
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = distance(query, node.term);
+            if (distance <= maxDistance) {
+                matches.add(new Match(node, distance));
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                int edge = child.getKey();
+                if (edge >= distance - maxDistance && edge <= distance + maxDistance) {
+                    pending.add(child.getValue());
+                }
+            }
+        }
+        return matches;
+    }
+
+    static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    public static final class Match {
+        private final Node node;
+        private final int distance;
+
+        Match(Node node, int distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+
+        public String getTerm() { return node.term; }
+        public int getDistance() { return distance; }
+
+        // Title ids whose given CatalogSearch field produced this term
+        public IntPostings getTitleIds(int field) {
+            IntPostings ids = node.byField.get(field);
+            return ids == null ? new IntPostings() : ids;
+        }
+    }
+
+    private static final class Node {
+        private final String term;
+        private final HashMap<Integer, Node> children = new HashMap<>();
+        private final HashMap<Integer, IntPostings> byField = new HashMap<>(2);
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        void add(int field, int titleId) {
+            IntPostings ids = byField.get(field);
+            if (ids == null) {
+                ids = new IntPostings();
+                byField.put(field, ids);
+            }
+            ids.add(titleId);
+        }
+    }
+}
@@ -1,42 +1,103 @@
 package sidlibrary.objectmodelpackage;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 public class Book {
-    private String bookName;
-    private String bookAuthor;
-    private String borrowerId;
-    private String borrowDate;
-    private String returnDate;
-    private boolean pendingReturn;
+    private static final int FREE = 0;
+    private static final int ON_LOAN = 1;
+    private static final AtomicIntegerFieldUpdater<Book> LOAN_STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Book.class, "loanState");
 
+    private TitleMetadata metadata;
+    private volatile String borrowerId;
+    // Epoch days, see LoanDates
+    private int borrowDay = LoanDates.NO_DATE;
+    private int returnDay = LoanDates.NO_DATE;
+    // Last day whose late fee has been posted to the borrower, see FineEngine
+    private int accruedThroughDay = LoanDates.NO_DATE;
+    private volatile int loanState = FREE;
+    // Collection this copy belongs to and its slot there, so availability changes reach Books
+    private Books owner;
+    private int copyIndex = -1;
+
+    // Copies share the title's metadata and only carry their own circulation state
     public Book(Book book) {
-        this.bookName = book.getBookName();
-        this.bookAuthor = book.getBookAuthor();
+        this.metadata = book.getMetadata();
     }
 
     public Book(String bookName, String bookAuthor) {
-        this.bookName = bookName;
-        this.bookAuthor = bookAuthor;
+        this.metadata = new TitleMetadata(bookName, bookAuthor);
     }
 
-    public Book() {}
+    protected Book(TitleMetadata metadata) {
+        this.metadata = metadata;
+    }
 
-    public String getBookName() { return bookName; }
-    public String getBookAuthor() { return bookAuthor; }
+    public Book() {
+        this.metadata = TitleMetadata.UNNAMED;
+    }
+
+    public TitleMetadata getMetadata() { return metadata; }
+    protected void setMetadata(TitleMetadata metadata) { this.metadata = metadata; }
+    public String getBookName() { return metadata.getBookName(); }
+    public String getBookAuthor() { return metadata.getBookAuthor(); }
     public String getBorrowerId() { return borrowerId; }
     public void setBorrowerId(String borrowerId) { this.borrowerId = borrowerId; }
-    public String getBorrowDate() { return borrowDate; }
-    public void setBorrowDate(String borrowDate) { this.borrowDate = borrowDate; }
-    public String getReturnDate() { return returnDate; }
-    public void setReturnDate(String returnDate) { this.returnDate = returnDate; }
-    public boolean isPendingReturn() { return pendingReturn; }
-    public void setPendingReturn(boolean pendingReturn) { this.pendingReturn = pendingReturn; }
+    public int getBorrowDay() { return borrowDay; }
+    public void setBorrowDay(int borrowDay) { this.borrowDay = borrowDay; }
+    public int getReturnDay() { return returnDay; }
+    public void setReturnDay(int returnDay) { this.returnDay = returnDay; }
+    public int getAccruedThroughDay() { return accruedThroughDay; }
+    public void setAccruedThroughDay(int accruedThroughDay) { this.accruedThroughDay = accruedThroughDay; }
+    public boolean isPendingReturn() { return loanState == ON_LOAN; }
+    public void setPendingReturn(boolean pendingReturn) {
+        this.loanState = pendingReturn ? ON_LOAN : FREE;
+        if (pendingReturn) accruedThroughDay = LoanDates.NO_DATE;
+        if (owner != null) owner.copyStateChanged(this);
+    }
+
+    // Atomic FREE -> ON_LOAN transition; only one caller can win a given copy
+    public boolean tryClaim(String borrowerId) {
+        if (!LOAN_STATE.compareAndSet(this, FREE, ON_LOAN)) {
+            return false;
+        }
+        this.borrowerId = borrowerId;
+        this.accruedThroughDay = LoanDates.NO_DATE;
+        if (owner != null) owner.copyStateChanged(this);
+        return true;
+    }
+
+    public boolean release() {
+        if (!LOAN_STATE.compareAndSet(this, ON_LOAN, FREE)) {
+            return false;
+        }
+        if (owner != null) owner.copyStateChanged(this);
+        return true;
+    }
+
+    // A new copy of the same title, on the shelf and of this copy's type; subclasses override
+    protected Book newCopy() {
+        return new Book(this);
+    }
+
+    Books getOwner() { return owner; }
+
+    Book titleCopy() {
+        return owner == null ? this : owner.titleCopy(this);
+    }
+
+    int getCopyIndex() { return copyIndex; }
+
+    void attachTo(Books owner, int copyIndex) {
+        this.owner = owner;
+        this.copyIndex = copyIndex;
+    }
 
     // File I/O removed for symbolic execution
     public void addBook() {
         // Simulated logic, no file I/O
-        System.out.println("Book added: " + bookName + ", " + bookAuthor);
+        System.out.println("Book added: " + getBookName() + ", " + getBookAuthor());
     }
 
     // Return mock list for symbolic testing
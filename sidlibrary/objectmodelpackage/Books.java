@@ -1,10 +1,25 @@
 package sidlibrary.objectmodelpackage;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 
-public class Books {
+// Reservations are per title here, so circulating types share one queue across their copies
+public class Books implements Reservable {
     private ArrayList<Book> books = new ArrayList<>();
     private int numOfCopies;
+    // Bit i is set while books.get(i) is on the shelf; kept in step by Book.setPendingReturn.
+    // Guarded by this collection's monitor, so different titles never contend.
+    private BitSet freeCopies = new BitSet();
+    private volatile int availableCount;
+    private String titleKey;
+    private boolean mixedTitles;
+    // Titles CatalogSearch has catalogued from this collection; their availability bits
+    // are refreshed here whenever the shelf goes empty or gets a copy back
+    private CatalogSearch catalog;
+    private ArrayList<Integer> catalogIds;
+    private ArrayList<String> catalogNames;
+    private ReservationQueue reservationQueue = new ReservationQueue();
 
     public Books() {}
 
@@ -12,9 +27,152 @@ public class Books {
     public int getNumOfCopies() { return numOfCopies; }
     public void setNumOfCopies(int numOfCopies) { this.numOfCopies = numOfCopies; }
 
-    public void addBookToList(Book book) { books.add(book); }
+    public synchronized void addBookToList(Book book) {
+        books.add(book);
+        boolean wasMixed = mixedTitles;
+        trackCopy(book, books.size() - 1);
+        if (mixedTitles != wasMixed) {
+            publishAvailability();
+        }
+    }
 
-    public void setBooks(ArrayList<Book> books) {
+    public synchronized void setBooks(ArrayList<Book> books) {
         this.books = books;
+        freeCopies.clear();
+        availableCount = 0;
+        titleKey = null;
+        mixedTitles = false;
+        for (int i = 0; i < books.size(); i++) {
+            trackCopy(books.get(i), i);
+        }
+        publishAvailability();
+    }
+
+    @Override
+    public synchronized boolean reserve(String borrowerId) {
+        if (borrowerId == null || borrowerId.isEmpty()) return false;
+        // A member with a copy out (or held for them) can't queue for another
+        for (Book book : books) {
+            if (book.isPendingReturn() && borrowerId.equals(book.getBorrowerId())) return false;
+        }
+        return reservationQueue.add(borrowerId);
+    }
+
+    @Override
+    public boolean cancelReservation(String borrowerId) {
+        return reservationQueue.remove(borrowerId);
+    }
+
+    @Override
+    public List<String> getReservationQueue() {
+        return reservationQueue.snapshot();
+    }
+
+    @Override
+    public boolean isReserved() {
+        return !reservationQueue.isEmpty();
+    }
+
+    @Override
+    public String getNextReserver() {
+        return reservationQueue.peek();
+    }
+
+    public int getAvailableCount() { return availableCount; }
+    public boolean isOutOfStock() { return availableCount == 0; }
+
+    public synchronized Book getFreeCopy() {
+        int index = freeCopies.nextSetBit(0);
+        return index < 0 ? null : books.get(index);
+    }
+
+    // A collection normally holds copies of one title, so the first copy usually matches
+    public Book findCopy(String bookName) {
+        for (Book book : books) {
+            if (book.getBookName().equalsIgnoreCase(bookName)) {
+                return book;
+            }
+        }
+        return null;
+    }
+
+    // The title's first copy, whose type sets the rules for every copy of it
+    synchronized Book titleCopy(Book copy) {
+        if (!mixedTitles) return books.get(0);
+        for (Book book : books) {
+            if (book.getMetadata() == copy.getMetadata()) return book;
+        }
+        return copy;
+    }
+
+    public synchronized Book findFreeCopy(String bookName) {
+        if (!mixedTitles) {
+            if (titleKey == null || !titleKey.equals(Library.normalizeTitle(bookName))) return null;
+            return getFreeCopy();
+        }
+        // Only collections built with setBooks from several titles get here
+        for (Book book : books) {
+            if (book.getBookName().equalsIgnoreCase(bookName) && !book.isPendingReturn()) {
+                return book;
+            }
+        }
+        return null;
+    }
+
+    // Reads the copy's current state rather than trusting the caller, so racing
+    // notifications for the same copy still leave the bitset correct
+    synchronized void copyStateChanged(Book book) {
+        int index = book.getCopyIndex();
+        boolean free = !book.isPendingReturn();
+        if (free != freeCopies.get(index)) {
+            freeCopies.set(index, free);
+            availableCount += free ? 1 : -1;
+            if (mixedTitles || availableCount == (free ? 1 : 0)) {
+                publishAvailability();
+            }
+        }
+    }
+
+    synchronized void addCatalogTitle(CatalogSearch catalog, int titleId, String bookName) {
+        if (catalogIds == null) {
+            catalogIds = new ArrayList<>();
+            catalogNames = new ArrayList<>();
+        } else if (catalogIds.contains(titleId)) {
+            return;
+        }
+        this.catalog = catalog;
+        catalogIds.add(titleId);
+        catalogNames.add(bookName);
+        catalog.setAvailable(titleId, hasFreeCopy(bookName));
+    }
+
+    private void publishAvailability() {
+        if (catalog == null) return;
+        for (int i = 0; i < catalogIds.size(); i++) {
+            catalog.setAvailable(catalogIds.get(i), hasFreeCopy(catalogNames.get(i)));
+        }
+    }
+
+    private boolean hasFreeCopy(String bookName) {
+        if (!mixedTitles || bookName == null) return availableCount > 0;
+        return findFreeCopy(bookName) != null;
+    }
+
+    private void trackCopy(Book book, int index) {
+        book.attachTo(this, index);
+        if (!book.isPendingReturn()) {
+            freeCopies.set(index);
+            availableCount++;
+            if (availableCount == 1) {
+                publishAvailability();
+            }
+        }
+        if (book.getBookName() == null) return;
+        String key = Library.normalizeTitle(book.getBookName());
+        if (titleKey == null) {
+            titleKey = key;
+        } else if (!titleKey.equals(key)) {
+            mixedTitles = true;
+        }
     }
 }
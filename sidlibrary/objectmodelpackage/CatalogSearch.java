@@ -0,0 +1,543 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Word index over a library's titles. Every distinct TitleMetadata gets a
+ * dense title id when its first copy is catalogued, and each lowercased word
+ * of its title, author and type-specific fields gets a posting for that id.
+ * A keyword query intersects the postings of its words, so it only touches
+ * titles that contain them instead of calling matches() on every book.
+ * Ranked queries score hits with the same per-type field boosts as
+ * getRelevanceScore, walk per-type, per-field lists in order of the best
+ * score left in them, and stop once the best K kept in a bounded heap
+ * cannot be beaten.
+ * Substring queries, which is what matches() implements, go through a
+ * trigram index and are verified against the lowercased fields.
+ * Title and author autocomplete is weighted by how many copies are held.
+ * A bit per title id tracks whether the title has a copy on the shelf, kept
+ * current by Books, so "available only" filters candidates with bit tests.
+ * Facet counts come from per-value bitmaps in a FacetIndex, and misspelled
+ * titles and authors are found through a BK-tree of their words.
+ */
+public class CatalogSearch {
+    public static final int TITLE = 0;
+    public static final int AUTHOR = 1;
+    // Genre, subject, format or reference type, whichever the title's type carries
+    public static final int DETAIL = 2;
+    public static final int EDITION = 3;
+    static final int FIELD_COUNT = 4;
+    // Plain Book copies are not Searchable; they rank on title and author like a Novel
+    private static final double[] BOOK_WEIGHTS = {10.0, 8.0, 0.0, 0.0};
+
+    private final ArrayList<Book> titles = new ArrayList<>();
+    private final ArrayList<Books> collections = new ArrayList<>();
+    private final IdentityHashMap<TitleMetadata, Integer> titleIds = new IdentityHashMap<>();
+    // Per title: lowercased field values and the boosts of its type, computed once when catalogued
+    private final ArrayList<String[]> lowerFields = new ArrayList<>();
+    private final ArrayList<double[]> weights = new ArrayList<>();
+    private final ArrayList<Boolean> searchable = new ArrayList<>();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    private final PrefixIndex titlePrefixes = new PrefixIndex();
+    private final PrefixIndex authorPrefixes = new PrefixIndex();
+    private final FacetIndex facets = new FacetIndex();
+    private final BKTree fuzzyTerms = new BKTree();
+    private final ArrayList<HashMap<String, IntPostings>> postings = new ArrayList<>(FIELD_COUNT);
+    // One list per type and scored field, highest bound first; see topK
+    private final ArrayList<ScoreList> scoreLists = new ArrayList<>();
+    private final IdentityHashMap<double[], List<ScoreList>> scoreListsByWeights = new IdentityHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by its own monitor: Books updates it while holding its own lock, never this one's
+    private final BitSet available = new BitSet();
+
+    public CatalogSearch() {
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            postings.add(new HashMap<String, IntPostings>());
+        }
+    }
+
+    // Records one more copy and returns its title id, cataloguing the title the first time it is seen
+    public int index(Book book, Books books) {
+        TitleMetadata metadata = book.getMetadata();
+        lock.writeLock().lock();
+        try {
+            titlePrefixes.add(metadata.getBookName(), 1);
+            authorPrefixes.add(metadata.getBookAuthor(), 1);
+            Integer existing = titleIds.get(metadata);
+            if (existing != null) return existing;
+            int titleId = titles.size();
+            titles.add(book);
+            collections.add(books);
+            titleIds.put(metadata, titleId);
+            String[] lower = new String[FIELD_COUNT];
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                String value = fieldValue(metadata, field);
+                lower[field] = value == null ? null : value.toLowerCase();
+            }
+            lowerFields.add(lower);
+            weights.add(weightsFor(book));
+            for (ScoreList list : scoreListsFor(weightsFor(book))) {
+                list.titleIds.add(titleId);
+                list.trigrams.add(titleId, lower[list.field]);
+            }
+            searchable.add(book instanceof Searchable);
+            for (String value : lower) {
+                trigrams.add(titleId, value);
+            }
+            facets.add(titleId, book);
+            for (int field = TITLE; field <= AUTHOR; field++) {
+                if (lower[field] == null) continue;
+                fuzzyTerms.add(lower[field], field, titleId);
+                for (String token : tokenize(lower[field])) {
+                    fuzzyTerms.add(token, field, titleId);
+                }
+            }
+            books.addCatalogTitle(this, titleId, metadata.getBookName());
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                for (String token : tokenize(fieldValue(metadata, field))) {
+                    IntPostings list = postings.get(field).get(token);
+                    if (list == null) {
+                        list = new IntPostings();
+                        postings.get(field).put(token, list);
+                    }
+                    list.add(titleId);
+                }
+            }
+            return titleId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Titles whose fields, between them, contain every word of the query
+    public List<Book> search(String query) {
+        return search(query, false);
+    }
+
+    public List<Book> search(String query, boolean availableOnly) {
+        lock.readLock().lock();
+        try {
+            int[] ids = searchIds(query);
+            return titlesFor(availableOnly ? keepAvailable(ids) : ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same results as calling matches(query) on every Searchable title: a title
+     * hits when its title, author or type field contains the query, ignoring
+     * case. Queries shorter than a trigram fall back to scanning the
+     * pre-lowercased fields.
+     */
+    public List<Book> searchSubstring(String query) {
+        return searchSubstring(query, false);
+    }
+
+    public List<Book> searchSubstring(String query, boolean availableOnly) {
+        if (query == null) return new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int[] ids = substringIds(query.toLowerCase(), true);
+            return titlesFor(availableOnly ? keepAvailable(ids) : ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Titles starting with the prefix, most copies first
+    public List<String> autocompleteTitles(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return titlePrefixes.complete(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> autocompleteAuthors(String prefix, int limit) {
+        lock.readLock().lock();
+        try {
+            return authorPrefixes.complete(prefix, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Titles where one field contains every word of the query
+    public List<Book> search(String query, int field) {
+        lock.readLock().lock();
+        try {
+            int[] ids = null;
+            for (String token : tokenize(query)) {
+                int[] hits = postingsFor(field, token);
+                ids = ids == null ? hits : IntPostings.intersect(ids, hits);
+                if (ids.length == 0) break;
+            }
+            return titlesFor(ids == null ? IntPostings.EMPTY : ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchPage topK(String query, int k) {
+        return topK(query, k, null, false);
+    }
+
+    public SearchPage topK(String query, int k, SearchHit after) {
+        return topK(query, k, after, false);
+    }
+
+    /**
+     * Best k titles for the query that rank after the cursor (null for the first
+     * page). A field adds its boost when it contains the query, exactly as in
+     * getRelevanceScore, so titles that don't contain it score 0 and never
+     * appear. Titles are reached through one list per type and scored field, in
+     * descending order of the most a title first matched there can score; the
+     * walk stops as soon as the k-th hit beats that bound, so a query with many
+     * strong matches reads only the lists, and the part of a list, it needs.
+     */
+    public SearchPage topK(String query, int k, SearchHit after, boolean availableOnly) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Page size must be positive: " + k);
+        }
+        if (query == null) return new SearchPage(new ArrayList<SearchHit>(), null);
+        lock.readLock().lock();
+        try {
+            String lowerQuery = query.toLowerCase();
+            // Worst kept hit at the head; sized by what can match, not by the caller's k
+            PriorityQueue<SearchHit> heap = new PriorityQueue<>(Math.max(1, Math.min(k, titles.size())),
+                    SearchHit.RANK_ORDER.reversed());
+            BitSet seen = new BitSet();
+            for (ScoreList list : scoreLists) {
+                if (heap.size() == k && heap.peek().getScore() > list.bound) break;
+                // Walked lazily: the rarest trigram's ids, each checked against the other trigrams
+                List<IntPostings> grams = list.trigrams.postingsFor(lowerQuery);
+                IntPostings walk = grams == null ? list.titleIds : grams.isEmpty() ? null : grams.get(0);
+                int count = walk == null ? 0 : walk.size();
+                int[] cursors = grams == null ? null : new int[grams.size()];
+                for (int i = 0; i < count; i++) {
+                    int titleId = walk.get(i);
+                    // Ids ascend, so once the bound only ties the worst hit nothing later in the list beats it
+                    if (heap.size() == k && heap.peek().getScore() >= list.bound
+                            && titleId > heap.peek().getTitleId()) break;
+                    if (seen.get(titleId) || !inAll(grams, cursors, titleId)) continue;
+                    String value = lowerFields.get(titleId)[list.field];
+                    if (value == null || !value.contains(lowerQuery)) continue;
+                    // Its best field matched here first, so no later list can reach it again
+                    seen.set(titleId);
+                    if (availableOnly && !isAvailable(titleId)) continue;
+                    double score = score(titleId, lowerQuery);
+                    if (after != null && !SearchHit.ranksBefore(after.getScore(), after.getTitleId(), score, titleId)) continue;
+                    if (heap.size() < k) {
+                        heap.add(new SearchHit(titleId, titles.get(titleId), collections.get(titleId), score));
+                    } else if (SearchHit.ranksBefore(score, titleId, heap.peek().getScore(), heap.peek().getTitleId())) {
+                        heap.poll();
+                        heap.add(new SearchHit(titleId, titles.get(titleId), collections.get(titleId), score));
+                    }
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(heap);
+            Collections.sort(hits, SearchHit.RANK_ORDER);
+            SearchHit next = hits.size() == k ? hits.get(k - 1) : null;
+            return new SearchPage(hits, next);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Exact hits ranked as by topK, followed by titles whose title or author,
+     * or one of their words, is within maxDistance edits (at most 2) of the
+     * query. Fuzzy hits order by distance, then field boost, and score the
+     * boost divided by one plus the distance. Short queries get a tighter
+     * bound so two edits cannot match nearly every short word.
+     */
+    public List<SearchHit> fuzzySearch(String query, int maxDistance, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Result count must be positive: " + k);
+        }
+        List<SearchHit> hits = new ArrayList<>();
+        if (query == null) return hits;
+        String lowerQuery = query.toLowerCase().trim();
+        int bound = Math.min(Math.min(maxDistance, 2), lowerQuery.length() <= 2 ? 0 : lowerQuery.length() <= 5 ? 1 : 2);
+        hits.addAll(topK(query, k).getHits());
+        if (hits.size() >= k || bound <= 0) return hits;
+        lock.readLock().lock();
+        try {
+            BitSet seen = new BitSet();
+            for (SearchHit hit : hits) {
+                seen.set(hit.getTitleId());
+            }
+            // Best (distance, boost) per title
+            HashMap<Integer, double[]> best = new HashMap<>();
+            for (BKTree.Match match : fuzzyTerms.search(lowerQuery, bound)) {
+                if (match.getDistance() == 0) continue;
+                for (int field = TITLE; field <= AUTHOR; field++) {
+                    IntPostings ids = match.getTitleIds(field);
+                    for (int i = 0; i < ids.size(); i++) {
+                        int titleId = ids.get(i);
+                        if (seen.get(titleId)) continue;
+                        double boost = weights.get(titleId)[field];
+                        double[] current = best.get(titleId);
+                        if (current == null || match.getDistance() < current[0]
+                                || (match.getDistance() == current[0] && boost > current[1])) {
+                            best.put(titleId, new double[] {match.getDistance(), boost});
+                        }
+                    }
+                }
+            }
+            List<Map.Entry<Integer, double[]>> ranked = new ArrayList<>(best.entrySet());
+            Collections.sort(ranked, (a, b) -> {
+                if (a.getValue()[0] != b.getValue()[0]) return Double.compare(a.getValue()[0], b.getValue()[0]);
+                if (a.getValue()[1] != b.getValue()[1]) return Double.compare(b.getValue()[1], a.getValue()[1]);
+                return Integer.compare(a.getKey(), b.getKey());
+            });
+            for (int i = 0; i < ranked.size() && hits.size() < k; i++) {
+                int titleId = ranked.get(i).getKey();
+                double[] value = ranked.get(i).getValue();
+                hits.add(new SearchHit(titleId, titles.get(titleId), collections.get(titleId), value[1] / (1 + value[0])));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Facet value counts over every title a ranked query for this text would consider;
+    // a null query counts the whole catalogue
+    public Map<String, Integer> facetCounts(SearchFacet facet, String query) {
+        lock.readLock().lock();
+        try {
+            if (query == null) return facets.counts(facet, null);
+            BitSet hits = new BitSet(titles.size());
+            for (int titleId : rankedCandidates(query.toLowerCase())) {
+                hits.set(titleId);
+            }
+            return facets.counts(facet, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isAvailable(int titleId) {
+        synchronized (available) {
+            return available.get(titleId);
+        }
+    }
+
+    public int getAvailableTitleCount() {
+        synchronized (available) {
+            return available.cardinality();
+        }
+    }
+
+    void setAvailable(int titleId, boolean free) {
+        synchronized (available) {
+            available.set(titleId, free);
+        }
+    }
+
+    // Candidate ids ANDed with the availability bits
+    private int[] keepAvailable(int[] ids) {
+        int[] kept = new int[ids.length];
+        int n = 0;
+        synchronized (available) {
+            for (int titleId : ids) {
+                if (available.get(titleId)) kept[n++] = titleId;
+            }
+        }
+        return Arrays.copyOf(kept, n);
+    }
+
+    public int getTitleCount() {
+        lock.readLock().lock();
+        try {
+            return titles.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTitleId(Book book) {
+        lock.readLock().lock();
+        try {
+            Integer titleId = titleIds.get(book.getMetadata());
+            return titleId == null ? -1 : titleId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock
+    int[] searchIds(String query) {
+        int[] ids = null;
+        for (String token : tokenize(query)) {
+            int[] hits = IntPostings.EMPTY;
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                hits = IntPostings.union(hits, postingsFor(field, token));
+            }
+            ids = ids == null ? hits : IntPostings.intersect(ids, hits);
+            if (ids.length == 0) break;
+        }
+        return ids == null ? IntPostings.EMPTY : ids;
+    }
+
+    // Titles with a field containing the query, the only ones getRelevanceScore gives a score; caller holds the read lock
+    private int[] rankedCandidates(String lowerQuery) {
+        return substringIds(lowerQuery, false);
+    }
+
+    // Caller holds the read lock
+    int[] substringIds(String lowerQuery, boolean searchableOnly) {
+        int[] candidates = trigrams.candidates(lowerQuery);
+        int count = candidates == null ? titles.size() : candidates.length;
+        int[] ids = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int titleId = candidates == null ? i : candidates[i];
+            if (searchableOnly && !searchable.get(titleId)) continue;
+            if (containsQuery(lowerFields.get(titleId), lowerQuery)) ids[n++] = titleId;
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    private static boolean containsQuery(String[] lower, String lowerQuery) {
+        for (String value : lower) {
+            if (value != null && value.contains(lowerQuery)) return true;
+        }
+        return false;
+    }
+
+    // getRelevanceScore from the cached lowercased fields: each field containing the query adds its boost
+    private double score(int titleId, String lowerQuery) {
+        String[] lower = lowerFields.get(titleId);
+        double[] row = weights.get(titleId);
+        double score = 0.0;
+        for (int field = TITLE; field <= DETAIL; field++) {
+            if (lower[field] != null && lower[field].contains(lowerQuery)) {
+                score += row[field];
+            }
+        }
+        return score;
+    }
+
+    // Ids are asked for in ascending order, so each list's cursor only moves forward
+    private static boolean inAll(List<IntPostings> grams, int[] cursors, int titleId) {
+        if (grams == null) return true;
+        for (int i = 1; i < grams.size(); i++) {
+            IntPostings gram = grams.get(i);
+            int at = cursors[i];
+            while (at < gram.size() && gram.get(at) < titleId) at++;
+            cursors[i] = at;
+            if (at == gram.size() || gram.get(at) != titleId) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The type's lists, created the first time a title of it is catalogued. Its
+     * scored fields are ordered by boost; a title first matched in a field's list
+     * can score at most that boost plus those of the fields after it, which is
+     * the list's bound. Lists of all types are kept sorted by bound.
+     */
+    private List<ScoreList> scoreListsFor(double[] row) {
+        List<ScoreList> lists = scoreListsByWeights.get(row);
+        if (lists != null) return lists;
+        List<Integer> fields = new ArrayList<>();
+        for (int field = TITLE; field <= DETAIL; field++) {
+            if (row[field] > 0) fields.add(field);
+        }
+        // Stable sort: equal boosts keep field order
+        Collections.sort(fields, (a, b) -> Double.compare(row[b], row[a]));
+        lists = new ArrayList<>();
+        double bound = 0.0;
+        for (int i = fields.size() - 1; i >= 0; i--) {
+            bound += row[fields.get(i)];
+            lists.add(0, new ScoreList(fields.get(i), bound));
+        }
+        scoreListsByWeights.put(row, lists);
+        scoreLists.addAll(lists);
+        Collections.sort(scoreLists, (a, b) -> Double.compare(b.bound, a.bound));
+        return lists;
+    }
+
+    static double[] weightsFor(Book book) {
+        if (book instanceof ReferenceBook) return ReferenceBook.RELEVANCE_WEIGHTS;
+        if (book instanceof Novel) return Novel.RELEVANCE_WEIGHTS;
+        if (book instanceof Textbook) return Textbook.RELEVANCE_WEIGHTS;
+        if (book instanceof EBook) return EBook.RELEVANCE_WEIGHTS;
+        return BOOK_WEIGHTS;
+    }
+
+    private int[] postingsFor(int field, String token) {
+        IntPostings list = postings.get(field).get(token);
+        return list == null ? IntPostings.EMPTY : list.toArray();
+    }
+
+    private List<Book> titlesFor(int[] ids) {
+        List<Book> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(titles.get(id));
+        }
+        return result;
+    }
+
+    static String fieldValue(TitleMetadata metadata, int field) {
+        switch (field) {
+            case TITLE: return metadata.getBookName();
+            case AUTHOR: return metadata.getBookAuthor();
+            case DETAIL:
+                if (metadata.getGenre() != null) return metadata.getGenre();
+                if (metadata.getSubject() != null) return metadata.getSubject();
+                if (metadata.getFormat() != null) return metadata.getFormat();
+                return metadata.getReferenceType();
+            case EDITION: return metadata.getEdition();
+            default: return null;
+        }
+    }
+
+    private static final class ScoreList {
+        final int field;
+        final double bound;
+        final IntPostings titleIds = new IntPostings();
+        // Trigrams of this field only, for the type's titles
+        final TrigramIndex trigrams = new TrigramIndex();
+
+        ScoreList(int field, double bound) {
+            this.field = field;
+            this.bound = bound;
+        }
+    }
+
+    // Lowercased runs of letters and digits, without duplicates
+    static LinkedHashSet<String> tokenize(String text) {
+        LinkedHashSet<String> tokens = new LinkedHashSet<>();
+        if (text == null) return tokens;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
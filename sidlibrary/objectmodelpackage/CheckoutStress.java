@@ -0,0 +1,100 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs 32 threads issuing and returning copies of a handful of titles and checks
+ * that no copy is ever held by two borrowers at once, and that every copy is
+ * back on the shelf at the end. Half the threads go through one CirculationDesk;
+ * the other half call Books.findFreeCopy and Book.tryClaim/release directly,
+ * without the title stripe, so the claim itself is what keeps copies exclusive.
+ * Exits with status 1 on any violation. Pass an iteration count per thread to
+ * shorten or lengthen the run.
+ */
+public class CheckoutStress {
+    private static final int THREADS = 32;
+    private static final int TITLES = 20;
+    private static final int COPIES_PER_TITLE = 5;
+    private static final int DEFAULT_ITERATIONS = 50000;
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+
+        Library library = new Library("COMSATS");
+        for (int t = 0; t < TITLES; t++) {
+            for (int c = 0; c < COPIES_PER_TITLE; c++) {
+                library.addCopy(new Book("Title" + t, "Author" + t));
+            }
+        }
+        CirculationDesk desk = new CirculationDesk(library);
+
+        ConcurrentHashMap<Book, String> holders = new ConcurrentHashMap<>();
+        AtomicInteger loans = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        AtomicInteger lostClaims = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            final String borrowerId = "S" + thread;
+            final Random random = new Random(thread);
+            final boolean direct = thread % 2 == 1;
+            workers.add(pool.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    String title = "Title" + random.nextInt(TITLES);
+                    Book copy;
+                    if (direct) {
+                        copy = library.findBooksCollection(title).findFreeCopy(title);
+                        if (copy == null) continue;
+                        // Another thread got there between the lookup and the claim
+                        if (!copy.tryClaim(borrowerId)) {
+                            lostClaims.incrementAndGet();
+                            continue;
+                        }
+                    } else {
+                        copy = desk.checkout(title, borrowerId, 14);
+                        if (copy == null) continue;
+                    }
+                    loans.incrementAndGet();
+                    // A second holder means two checkouts won the same copy
+                    String other = holders.putIfAbsent(copy, borrowerId);
+                    if (other != null || !borrowerId.equals(copy.getBorrowerId())) {
+                        violations.incrementAndGet();
+                        System.out.println("Copy of " + copy.getBookName() + " held by " + borrowerId + " and "
+                                + (other != null ? other : copy.getBorrowerId()));
+                    }
+                    holders.remove(copy, borrowerId);
+                    if (direct ? !copy.release() : !desk.checkin(copy)) {
+                        violations.incrementAndGet();
+                        System.out.println("Copy of " + copy.getBookName() + " was already back when " + borrowerId + " returned it");
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+
+        int available = 0;
+        for (int t = 0; t < TITLES; t++) {
+            available += library.findBooksCollection("Title" + t).getAvailableCount();
+        }
+        if (available != TITLES * COPIES_PER_TITLE) {
+            violations.incrementAndGet();
+            System.out.println("Expected " + (TITLES * COPIES_PER_TITLE) + " copies on the shelf, found " + available);
+        }
+
+        System.out.println("Loans: " + loans + ", lost claims: " + lostClaims + ", violations: " + violations);
+        if (violations.get() > 0) {
+            System.exit(1);
+        }
+    }
+}
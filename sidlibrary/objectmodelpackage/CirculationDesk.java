@@ -0,0 +1,251 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe checkout and return of copies. A copy is claimed with a single
+ * compare-and-set on its loan state, so two desks issuing the last copy of a
+ * title cannot both succeed. Mutations also run under the title's stripe from
+ * Library.getTitleLocks(), so work on one title is serialized while different
+ * titles proceed in parallel; no lock is held across the whole Library.
+ */
+public class CirculationDesk {
+    private Library library;
+    private MemberRegistry members;
+    private FineEngine fines = new FineEngine();
+    private OverdueIndex overdue = new OverdueIndex();
+    private ReservationService reservations = new ReservationService();
+
+    public CirculationDesk(Library library) {
+        this(library, new MemberRegistry(true));
+    }
+
+    public CirculationDesk(Library library, MemberRegistry members) {
+        this.library = library;
+        this.members = members;
+    }
+
+    public Library getLibrary() { return library; }
+    public MemberRegistry getMembers() { return members; }
+    public FineEngine getFineEngine() { return fines; }
+    public FineLedger getFineLedger() { return fines.getLedger(); }
+    public OverdueIndex getOverdueIndex() { return overdue; }
+    public ReservationService getReservations() { return reservations; }
+    public void setReservations(ReservationService reservations) { this.reservations = reservations; }
+    // Loan and due days are taken from the engine's clock, so swap it before issuing
+    public void setFineEngine(FineEngine fines) { this.fines = fines; }
+
+    public Books addCopy(Book book) {
+        return library.addCopy(book);
+    }
+
+    // Returns the claimed copy, or null if the title is unknown or every copy is out
+    public Book checkout(String bookName, String borrowerId, int loanDays) {
+        Books books = library.findBooksCollectionIgnoreCase(bookName);
+        if (books == null) return null;
+        ReentrantLock lock = library.getTitleLocks().lockFor(bookName);
+        lock.lock();
+        try {
+            int today = fines.today();
+            Book copy = claimCopy(books, bookName, borrowerId, today, today + loanDays);
+            if (copy != null) {
+                overdue.add(copy);
+            }
+            return copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean checkin(Book copy) {
+        ReentrantLock lock = library.getTitleLocks().lockFor(copy.getBookName());
+        lock.lock();
+        try {
+            overdue.remove(copy);
+            String borrower = copy.getBorrowerId();
+            if (!copy.release()) return false;
+            // Still under the stripe, so the copy goes straight to the next reserver's hold
+            reservations.onReturn(copy, borrower, fines.today());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Pushes the due date out by the item's renewal period if its rules allow it.
+    // The title decides whether it renews at all; the copy keeps its own renewal count.
+    public boolean renew(Book copy, String borrowerId) {
+        if (!(copy.titleCopy() instanceof Renewable) || !(copy instanceof Renewable)) return false;
+        Renewable renewable = (Renewable) copy;
+        ReentrantLock lock = library.getTitleLocks().lockFor(copy.getBookName());
+        lock.lock();
+        try {
+            if (!renewable.canRenew(borrowerId)) return false;
+            overdue.reschedule(copy, renewable.renew(copy.getReturnDay()));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public IssueResult issue(String studentId, String bookName) {
+        return issueBatch(studentId, Collections.singletonList(bookName), true).get(0);
+    }
+
+    /**
+     * Issues a basket of titles to one student. The student, library access and
+     * borrowing rules are resolved once, the due date is computed once, and every
+     * stripe the basket touches is locked once. With allOrNothing, any failure
+     * releases the copies already claimed and reports them as ROLLED_BACK.
+     */
+    public List<IssueResult> issueBatch(String studentId, List<String> bookNames, boolean allOrNothing) {
+        List<IssueResult> results = new ArrayList<>(bookNames.size());
+        Student student = members.find(studentId);
+        IssueStatus rejection = null;
+        RulesResultSet rules = null;
+        if (student == null) {
+            rejection = IssueStatus.STUDENT_NOT_FOUND;
+        } else if (!student.hasLibraryAccess(library.getInstituteName())) {
+            rejection = IssueStatus.NO_LIBRARY_ACCESS;
+        } else {
+            rules = library.comsatsRules(student.getInstituteName(), student.getProgramEnrolledIn());
+            if (rules == null) {
+                rejection = IssueStatus.NO_RULES;
+            }
+        }
+        if (rejection != null) {
+            for (String bookName : bookNames) {
+                results.add(new IssueResult(bookName, rejection, null));
+            }
+            return results;
+        }
+
+        int today = fines.today();
+        int dueDay = today + rules.getNumOfDays();
+        TitleLocks titleLocks = library.getTitleLocks();
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (String bookName : bookNames) {
+            stripes.add(titleLocks.stripeIndex(bookName));
+        }
+
+        synchronized (student) {
+            for (int stripe : stripes) {
+                titleLocks.getStripe(stripe).lock();
+            }
+            try {
+                int remaining = rules.getNumOfBooks() - student.getIssuedCount();
+                boolean failed = false;
+                for (String bookName : bookNames) {
+                    IssueStatus status;
+                    Book copy = null;
+                    Books books = library.findBooksCollectionIgnoreCase(bookName);
+                    if (books == null) {
+                        status = IssueStatus.NOT_IN_LIBRARY;
+                    } else if (remaining <= 0) {
+                        status = IssueStatus.LIMIT_REACHED;
+                    } else {
+                        copy = claimCopy(books, bookName, student.getStudentId(), today, dueDay);
+                        status = copy != null ? IssueStatus.ISSUED : IssueStatus.OUT_OF_STOCK;
+                    }
+                    if (copy != null) {
+                        remaining--;
+                    } else {
+                        failed = true;
+                    }
+                    results.add(new IssueResult(bookName, status, copy));
+                }
+
+                if (failed && allOrNothing) {
+                    for (int i = 0; i < results.size(); i++) {
+                        IssueResult result = results.get(i);
+                        if (result.isIssued()) {
+                            result.getBook().release();
+                            results.set(i, new IssueResult(result.getBookName(), IssueStatus.ROLLED_BACK, null));
+                        }
+                    }
+                } else {
+                    for (IssueResult result : results) {
+                        if (result.isIssued()) {
+                            student.addBookToIssueList(result.getBook());
+                            overdue.add(result.getBook());
+                        }
+                    }
+                }
+            } finally {
+                for (int stripe : stripes.descendingSet()) {
+                    titleLocks.getStripe(stripe).unlock();
+                }
+            }
+        }
+        return results;
+    }
+
+    // Returns the student's copy of the title; null if they do not have it on loan
+    public Book returnBook(String studentId, String bookName) {
+        Student student = members.find(studentId);
+        if (student == null) return null;
+        Book copy;
+        synchronized (student) {
+            copy = student.removeIssuedBook(bookName);
+            if (copy != null) {
+                fines.accrue(student, copy);
+            }
+        }
+        if (copy != null) {
+            checkin(copy);
+        }
+        return copy;
+    }
+
+    // Records a payment against the student's fine; false if they're unknown or it's more than they owe
+    public boolean payFine(String studentId, int amount) {
+        Student student = members.find(studentId);
+        return student != null && fines.pay(student, amount);
+    }
+
+    /**
+     * Turns the student's hold on the item into a loan due under their borrowing
+     * rules. Returns null if there is no such hold or the student is at their limit,
+     * in which case the hold stays on the shelf.
+     */
+    public Book collectHold(String studentId, Reservable item) {
+        Student student = members.find(studentId);
+        if (student == null) return null;
+        RulesResultSet rules = library.comsatsRules(student.getInstituteName(), student.getProgramEnrolledIn());
+        if (rules == null) return null;
+        synchronized (student) {
+            if (student.getIssuedCount() >= rules.getNumOfBooks()) return null;
+            Book copy = reservations.collect(item, studentId);
+            if (copy == null) return null;
+            int today = fines.today();
+            copy.setBorrowDay(today);
+            copy.setReturnDay(today + rules.getNumOfDays());
+            student.addBookToIssueList(copy);
+            overdue.add(copy);
+            return copy;
+        }
+    }
+
+    // Releases uncollected holds past their last pickup day, passing each copy on to the next reserver
+    public List<Hold> expireHolds() {
+        return reservations.expireHolds(fines.today());
+    }
+
+    // Caller holds the title's stripe
+    private Book claimCopy(Books books, String bookName, String borrowerId, int today, int dueDay) {
+        Book copy;
+        while ((copy = books.findFreeCopy(bookName)) != null) {
+            if (copy.tryClaim(borrowerId)) {
+                copy.setBorrowDay(today);
+                copy.setReturnDay(dueDay);
+                return copy;
+            }
+            // Claimed outside the desk (e.g. a driver calling tryClaim directly); try the next one
+        }
+        return null;
+    }
+}
@@ -56,13 +56,13 @@ public class DigitalLibrary extends Library {
 
     // Override methods with Digital Library-specific behavior
     @Override
-    public RulesResultSet comsatsRules(String instituteName, String programEnrolledIn) {
+    protected RulesResultSet buildRules(boolean comsatsStudent, ProgramType program) {
         // Digital libraries have more lenient rules
-        if (instituteName.equals("COMSATS")) {
-            switch (programEnrolledIn) {
-                case "UG": return new RulesResultSet(10, 30);
-                case "PG": return new RulesResultSet(8, 25);
-                case "PHD": return new RulesResultSet(5, 20);
+        if (comsatsStudent) {
+            switch (program) {
+                case UG: return new RulesResultSet(10, 30);
+                case PG: return new RulesResultSet(8, 25);
+                case PHD: return new RulesResultSet(5, 20);
             }
         }
         return null;
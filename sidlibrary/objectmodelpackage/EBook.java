@@ -7,43 +7,42 @@ import java.util.ArrayList;
  * EBooks have different borrowing rules and can be renewed more times
  */
 public class EBook extends Book implements Borrowable, Renewable, Searchable {
-    private String format; // PDF, EPUB, MOBI, etc.
-    private long fileSize; // in bytes
-    private int maxBorrowDays;
     private int renewalCount;
-    private int maxRenewals;
     private static final int EBOOK_MAX_DAYS = 30;
     private static final int EBOOK_MAX_RENEWALS = 5;
+    // Boost per CatalogSearch field: title, author, format, edition
+    static final double[] RELEVANCE_WEIGHTS = {10.0, 8.0, 3.0, 0.0};
 
     public EBook(String bookName, String bookAuthor, String format, long fileSize) {
-        super(bookName, bookAuthor);
-        this.format = format;
-        this.fileSize = fileSize;
-        this.maxBorrowDays = EBOOK_MAX_DAYS;
+        super(TitleMetadata.forEBook(bookName, bookAuthor, format, fileSize));
         this.renewalCount = 0;
-        this.maxRenewals = EBOOK_MAX_RENEWALS;
     }
 
     public EBook(EBook eBook) {
         super(eBook);
-        this.format = eBook.getFormat();
-        this.fileSize = eBook.getFileSize();
-        this.maxBorrowDays = eBook.getMaxBorrowDays();
         this.renewalCount = eBook.getRenewalCount();
-        this.maxRenewals = eBook.getMaxRenewals();
     }
 
     public EBook() {
         super();
-        this.maxBorrowDays = EBOOK_MAX_DAYS;
         this.renewalCount = 0;
-        this.maxRenewals = EBOOK_MAX_RENEWALS;
     }
 
-    public String getFormat() { return format; }
-    public void setFormat(String format) { this.format = format; }
-    public long getFileSize() { return fileSize; }
-    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+    private EBook(TitleMetadata metadata) {
+        super(metadata);
+        this.renewalCount = 0;
+    }
+
+    @Override
+    protected Book newCopy() {
+        return new EBook(getMetadata());
+    }
+
+    // format is PDF, EPUB, MOBI, etc.; fileSize is in bytes
+    public String getFormat() { return getMetadata().getFormat(); }
+    public void setFormat(String format) { setMetadata(getMetadata().withFormat(format)); }
+    public long getFileSize() { return getMetadata().getFileSize(); }
+    public void setFileSize(long fileSize) { setMetadata(getMetadata().withFileSize(fileSize)); }
 
     // Borrowable interface implementation
     @Override
@@ -66,7 +65,7 @@ public class EBook extends Book implements Borrowable, Renewable, Searchable {
 
     @Override
     public int getMaxBorrowDays() {
-        return maxBorrowDays;
+        return EBOOK_MAX_DAYS;
     }
 
     @Override
@@ -82,21 +81,21 @@ public class EBook extends Book implements Borrowable, Renewable, Searchable {
         return isPendingReturn() && 
                getBorrowerId() != null && 
                getBorrowerId().equals(borrowerId) &&
-               renewalCount < maxRenewals;
+               renewalCount < EBOOK_MAX_RENEWALS;
     }
 
     @Override
     public int renew(int currentDays) {
-        if (renewalCount < maxRenewals) {
+        if (renewalCount < EBOOK_MAX_RENEWALS) {
             renewalCount++;
-            return currentDays + maxBorrowDays;
+            return currentDays + EBOOK_MAX_DAYS;
         }
         return currentDays;
     }
 
     @Override
     public int getMaxRenewals() {
-        return maxRenewals;
+        return EBOOK_MAX_RENEWALS;
     }
 
     @Override
@@ -108,6 +107,7 @@ public class EBook extends Book implements Borrowable, Renewable, Searchable {
     @Override
     public boolean matches(String query) {
         if (query == null) return false;
+        String format = getFormat();
         String lowerQuery = query.toLowerCase();
         return getBookName().toLowerCase().contains(lowerQuery) ||
                getBookAuthor().toLowerCase().contains(lowerQuery) ||
@@ -116,22 +116,26 @@ public class EBook extends Book implements Borrowable, Renewable, Searchable {
 
     @Override
     public double getRelevanceScore(String query) {
-        if (!matches(query)) return 0.0;
+        if (query == null) return 0.0;
+        String format = getFormat();
         double score = 0.0;
         String lowerQuery = query.toLowerCase();
-        if (getBookName().toLowerCase().contains(lowerQuery)) score += 10.0;
-        if (getBookAuthor().toLowerCase().contains(lowerQuery)) score += 8.0;
-        if (format != null && format.toLowerCase().contains(lowerQuery)) score += 3.0;
+        if (getBookName().toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.TITLE];
+        if (getBookAuthor().toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.AUTHOR];
+        if (format != null && format.toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.DETAIL];
         return score;
     }
 
     @Override
     public String getSearchableContent() {
+        String format = getFormat();
         return getBookName() + " " + getBookAuthor() + " " + (format != null ? format : "");
     }
 
     @Override
     public void addBook() {
+        String format = getFormat();
+        long fileSize = getFileSize();
         System.out.println("EBook added: " + getBookName() + ", " + getBookAuthor() + 
                           ", Format: " + format + ", Size: " + fileSize + " bytes");
     }
@@ -0,0 +1,69 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One bitmap of title ids per facet value. Counting a facet for a query is an
+ * AND of each value's bitmap with the query's hits and a popcount, so no book
+ * is visited and no instanceof check runs at query time.
+ */
+public class FacetIndex {
+    private final EnumMap<SearchFacet, HashMap<String, BitSet>> bitmaps = new EnumMap<>(SearchFacet.class);
+
+    public FacetIndex() {
+        for (SearchFacet facet : SearchFacet.values()) {
+            bitmaps.put(facet, new HashMap<String, BitSet>());
+        }
+    }
+
+    public void add(int titleId, Book book) {
+        for (SearchFacet facet : SearchFacet.values()) {
+            String value = facet.valueOf(book);
+            if (value == null) continue;
+            BitSet bits = bitmaps.get(facet).get(value);
+            if (bits == null) {
+                bits = new BitSet();
+                bitmaps.get(facet).put(value, bits);
+            }
+            bits.set(titleId);
+        }
+    }
+
+    // Value -> hits among the given titles (all titles when null), largest count first
+    public Map<String, Integer> counts(SearchFacet facet, BitSet titles) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (Map.Entry<String, BitSet> value : bitmaps.get(facet).entrySet()) {
+            int count;
+            if (titles == null) {
+                count = value.getValue().cardinality();
+            } else {
+                BitSet hits = (BitSet) value.getValue().clone();
+                hits.and(titles);
+                count = hits.cardinality();
+            }
+            if (count > 0) {
+                entries.add(new HashMap.SimpleEntry<>(value.getKey(), count));
+            }
+        }
+        Collections.sort(entries, (a, b) -> a.getValue().equals(b.getValue())
+                ? a.getKey().compareTo(b.getKey()) : b.getValue() - a.getValue());
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            counts.put(entry.getKey(), entry.getValue());
+        }
+        return counts;
+    }
+
+    // Titles having the given facet value, for narrowing a result set
+    public BitSet titlesWith(SearchFacet facet, String value) {
+        BitSet bits = bitmaps.get(facet).get(value);
+        return bits == null ? new BitSet() : (BitSet) bits.clone();
+    }
+}
@@ -0,0 +1,121 @@
+package sidlibrary.objectmodelpackage;
+
+import java.time.Clock;
+
+/**
+ * Late fees per loan, computed from the copy's due day and the last day already
+ * posted to the borrower. Viewing is read-only; accrue posts each overdue day once.
+ */
+public class FineEngine {
+    // Rate for plain Book copies, which do not implement Borrowable
+    public static final int DEFAULT_DAILY_FINE = 10;
+
+    private final Clock clock;
+    // Every fine change is appended here; Student.fine only mirrors the member's ledger balance
+    private final FineLedger ledger;
+
+    public FineEngine() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public FineEngine(Clock clock) {
+        this(clock, new FineLedger());
+    }
+
+    public FineEngine(Clock clock, FineLedger ledger) {
+        this.clock = clock;
+        this.ledger = ledger;
+    }
+
+    public FineLedger getLedger() { return ledger; }
+
+    public int today() {
+        return LoanDates.today(clock);
+    }
+
+    public int outstanding(Book book) {
+        return outstanding(book, today());
+    }
+
+    // Fee for overdue days up to asOfDay that have not been posted yet
+    public int outstanding(Book book, int asOfDay) {
+        int dueDay = book.getReturnDay();
+        if (dueDay == LoanDates.NO_DATE) return 0;
+        int overdueDays = asOfDay - dueDay;
+        if (overdueDays <= 0) return 0;
+        int postedDays = book.getAccruedThroughDay() == LoanDates.NO_DATE
+                ? 0 : Math.max(0, book.getAccruedThroughDay() - dueDay);
+        if (postedDays >= overdueDays) return 0;
+        return lateFee(book, overdueDays) - lateFee(book, postedDays);
+    }
+
+    // Posted fine plus whatever the student's active loans have accrued since
+    public int outstanding(Student student) {
+        int asOfDay = today();
+        synchronized (student) {
+            int total = student.getFine();
+            for (Book book : student.getIssuedBooks()) {
+                total += outstanding(book, asOfDay);
+            }
+            return total;
+        }
+    }
+
+    public int accrue(Student student, Book book) {
+        return accrue(student, book, today());
+    }
+
+    // Adds the unposted fee on one loan to the student's fine and marks it posted
+    public int accrue(Student student, Book book, int asOfDay) {
+        synchronized (student) {
+            if (!ledger.acceptsDay(student.getStudentId(), asOfDay)) {
+                throw new IllegalArgumentException("Accrual day is before the member's last ledger event");
+            }
+            int amount = outstanding(book, asOfDay);
+            if (amount > 0) {
+                ledger.accrue(student, amount, asOfDay);
+            }
+            if (book.getAccruedThroughDay() == LoanDates.NO_DATE || book.getAccruedThroughDay() < asOfDay) {
+                book.setAccruedThroughDay(asOfDay);
+            }
+            return amount;
+        }
+    }
+
+    // Payments and waivers are dated today and can't exceed what the student owes
+    public boolean pay(Student student, int amount) {
+        synchronized (student) {
+            if (amount <= 0 || amount > student.getFine()) return false;
+            ledger.pay(student, amount, today());
+            return true;
+        }
+    }
+
+    public boolean waive(Student student, int amount) {
+        synchronized (student) {
+            if (amount <= 0 || amount > student.getFine()) return false;
+            ledger.waive(student, amount, today());
+            return true;
+        }
+    }
+
+    public int accrueAll(Student student) {
+        int asOfDay = today();
+        synchronized (student) {
+            for (Book book : student.getIssuedBooks()) {
+                accrue(student, book, asOfDay);
+            }
+            return student.getFine();
+        }
+    }
+
+    // The rate is the title's, so a copy that isn't of its title's type is still billed at that type's rate
+    private static int lateFee(Book book, int daysOverdue) {
+        if (daysOverdue <= 0) return 0;
+        Book title = book.titleCopy();
+        if (title instanceof Borrowable) {
+            return (int) Math.round(((Borrowable) title).calculateLateFee(daysOverdue));
+        }
+        return daysOverdue * DEFAULT_DAILY_FINE;
+    }
+}
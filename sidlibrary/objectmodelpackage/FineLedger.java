@@ -0,0 +1,296 @@
+package sidlibrary.objectmodelpackage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Append-only record of fine events (accruals, payments, waivers) held in
+ * fixed-size segments of primitive columns. Each member's balance is kept
+ * current as events are appended and mirrored into Student.fine, so getFine()
+ * stays O(1). Every event also stores the member's balance after it and a link
+ * to their previous event, and every CHECKPOINT_INTERVAL-th event of a member
+ * is kept in a small in-memory list, so a balance at a past date is found by a
+ * binary search and a short walk back instead of replaying history.
+ *
+ * With a spill directory, each full segment is written to disk whole and its
+ * columns are dropped; only the checkpoints and per-member totals stay in
+ * memory, and spilled segments are read back when a query walks into them.
+ * Without one (the default, and what the SPF drivers use) nothing touches the
+ * filesystem.
+ */
+public class FineLedger {
+    public static final byte ACCRUAL = 0;
+    public static final byte PAYMENT = 1;
+    public static final byte WAIVER = 2;
+
+    private static final int SEGMENT_SIZE = 1 << 12;
+    private static final int CHECKPOINT_INTERVAL = 64;
+
+    private final File spillDirectory;
+    private final ArrayList<Segment> segments = new ArrayList<>();
+    private final HashMap<String, Integer> slotsByMember = new HashMap<>();
+    private int[] balances = new int[16];
+    private int[] lastEvent = new int[16];
+    private int[] eventCounts = new int[16];
+    // Fine the student already had when their first event was appended
+    private int[] openingBalances = new int[16];
+    // Day of each member's latest event; their events must not go back in time
+    private int[] lastDays = new int[16];
+    private Checkpoints[] checkpoints = new Checkpoints[16];
+    private int memberCount;
+    private long eventCount;
+
+    public FineLedger() {
+        this(null);
+    }
+
+    public FineLedger(File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    public synchronized void accrue(Student student, int amount, int day) {
+        append(student, ACCRUAL, amount, day);
+    }
+
+    public synchronized void pay(Student student, int amount, int day) {
+        append(student, PAYMENT, amount, day);
+    }
+
+    public synchronized void waive(Student student, int amount, int day) {
+        append(student, WAIVER, amount, day);
+    }
+
+    public synchronized int getBalance(String memberId) {
+        Integer slot = slotsByMember.get(memberId);
+        return slot == null ? 0 : balances[slot];
+    }
+
+    // Balance after every event dated on or before the given day
+    public synchronized int getBalanceAt(String memberId, int day) {
+        Integer slot = slotsByMember.get(memberId);
+        if (slot == null) return 0;
+        if (lastDays[slot] <= day) return balances[slot];
+        // Days only grow per member, so the answer is just before the first checkpoint past the day
+        Checkpoints marks = checkpoints[slot];
+        int mark = marks.firstAfter(day);
+        int event = mark < marks.count ? marks.events[mark] : lastEvent[slot];
+        Segment loaded = null;
+        while (event >= 0) {
+            Segment segment = segmentOf(event);
+            if (segment.days == null) {
+                if (loaded == null || loaded.index != segment.index) {
+                    loaded = readSegment(segment);
+                }
+                segment = loaded;
+            }
+            int offset = offsetOf(event);
+            if (segment.days[offset] <= day) return segment.balanceAfter[offset];
+            event = segment.previous[offset];
+        }
+        return openingBalances[slot];
+    }
+
+    // Replays the member's history from the raw events, reading spilled segments back
+    public synchronized int recomputeBalance(String memberId) {
+        Integer slot = slotsByMember.get(memberId);
+        if (slot == null) return 0;
+        int balance = openingBalances[slot];
+        for (Segment segment : segments) {
+            Segment columns = segment.members == null ? readSegment(segment) : segment;
+            for (int i = 0; i < segment.count; i++) {
+                if (columns.members[i] == slot) {
+                    balance += signed(columns.types[i], columns.amounts[i]);
+                }
+            }
+        }
+        return balance;
+    }
+
+    // False if appending an event for the member on this day would break their day order
+    public synchronized boolean acceptsDay(String memberId, int day) {
+        Integer slot = slotsByMember.get(memberId);
+        return slot == null || day >= lastDays[slot];
+    }
+
+    public synchronized long getEventCount() { return eventCount; }
+
+    public synchronized int getMemberCount() { return memberCount; }
+
+    private void append(Student student, byte type, int amount, int day) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Ledger amounts must be positive: " + amount);
+        }
+        if (!acceptsDay(student.getStudentId(), day)) {
+            throw new IllegalArgumentException("Ledger events for a member must be appended in day order");
+        }
+        // Spills a full segment first, so a failed write leaves the event unrecorded
+        Segment segment = writableSegment();
+        int slot = slotFor(student);
+        int offset = segment.count;
+        int event = (int) eventCount;
+        balances[slot] += signed(type, amount);
+
+        segment.members[offset] = slot;
+        segment.types[offset] = type;
+        segment.amounts[offset] = amount;
+        segment.days[offset] = day;
+        segment.balanceAfter[offset] = balances[slot];
+        segment.previous[offset] = lastEvent[slot];
+        if (eventCounts[slot]++ % CHECKPOINT_INTERVAL == 0) {
+            checkpoints[slot].add(event, day);
+        }
+        segment.count++;
+        lastEvent[slot] = event;
+        eventCount++;
+        lastDays[slot] = day;
+        student.setFine(balances[slot]);
+    }
+
+    private int slotFor(Student student) {
+        String memberId = student.getStudentId();
+        Integer slot = slotsByMember.get(memberId);
+        if (slot != null) return slot;
+        if (memberCount == balances.length) {
+            int capacity = memberCount * 2;
+            balances = Arrays.copyOf(balances, capacity);
+            lastEvent = Arrays.copyOf(lastEvent, capacity);
+            eventCounts = Arrays.copyOf(eventCounts, capacity);
+            openingBalances = Arrays.copyOf(openingBalances, capacity);
+            lastDays = Arrays.copyOf(lastDays, capacity);
+            checkpoints = Arrays.copyOf(checkpoints, capacity);
+        }
+        int newSlot = memberCount++;
+        openingBalances[newSlot] = student.getFine();
+        balances[newSlot] = student.getFine();
+        lastDays[newSlot] = LoanDates.NO_DATE;
+        lastEvent[newSlot] = -1;
+        checkpoints[newSlot] = new Checkpoints();
+        slotsByMember.put(memberId, newSlot);
+        return newSlot;
+    }
+
+    private Segment writableSegment() {
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last != null && last.count < SEGMENT_SIZE) return last;
+        if (last != null && spillDirectory != null && last.file == null) {
+            spill(last);
+        }
+        if (eventCount >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("Ledger is full");
+        }
+        Segment segment = new Segment(segments.size());
+        segments.add(segment);
+        return segment;
+    }
+
+    private Segment segmentOf(int event) { return segments.get(event / SEGMENT_SIZE); }
+
+    private static int offsetOf(int event) { return event % SEGMENT_SIZE; }
+
+    private static int signed(byte type, int amount) {
+        return type == ACCRUAL ? amount : -amount;
+    }
+
+    // Writes every column out and drops them; a failed write is reported and the columns kept
+    private void spill(Segment segment) {
+        File file = new File(spillDirectory, "fine-ledger-" + segment.index + ".seg");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(segment.count);
+            for (int i = 0; i < segment.count; i++) {
+                out.writeInt(segment.members[i]);
+                out.writeByte(segment.types[i]);
+                out.writeInt(segment.amounts[i]);
+                out.writeInt(segment.days[i]);
+                out.writeInt(segment.balanceAfter[i]);
+                out.writeInt(segment.previous[i]);
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw new UncheckedIOException("Could not spill ledger segment to " + file, e);
+        }
+        segment.file = file;
+        segment.members = null;
+        segment.types = null;
+        segment.amounts = null;
+        segment.days = null;
+        segment.balanceAfter = null;
+        segment.previous = null;
+    }
+
+    private static Segment readSegment(Segment spilled) {
+        Segment loaded = new Segment(spilled.index);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(spilled.file)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                loaded.members[i] = in.readInt();
+                loaded.types[i] = in.readByte();
+                loaded.amounts[i] = in.readInt();
+                loaded.days[i] = in.readInt();
+                loaded.balanceAfter[i] = in.readInt();
+                loaded.previous[i] = in.readInt();
+            }
+            loaded.count = count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read ledger segment " + spilled.file, e);
+        }
+        return loaded;
+    }
+
+    private static final class Segment {
+        final int index;
+        int[] members = new int[SEGMENT_SIZE];
+        byte[] types = new byte[SEGMENT_SIZE];
+        int[] amounts = new int[SEGMENT_SIZE];
+        int[] days = new int[SEGMENT_SIZE];
+        int[] balanceAfter = new int[SEGMENT_SIZE];
+        int[] previous = new int[SEGMENT_SIZE];
+        File file;
+        int count;
+
+        Segment(int index) {
+            this.index = index;
+        }
+    }
+
+    // One member's first event and every CHECKPOINT_INTERVAL-th after it, in event (and day) order
+    private static final class Checkpoints {
+        int[] events = new int[4];
+        int[] days = new int[4];
+        int count;
+
+        void add(int event, int day) {
+            if (count == events.length) {
+                events = Arrays.copyOf(events, count * 2);
+                days = Arrays.copyOf(days, count * 2);
+            }
+            events[count] = event;
+            days[count] = day;
+            count++;
+        }
+
+        // Index of the first checkpoint dated after the day, or count if there is none
+        int firstAfter(int day) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (days[mid] <= day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package sidlibrary.objectmodelpackage;
+
+/**
+ * A returned copy set aside for the next reserver until it is collected or
+ * its last pickup day passes
+ */
+public class Hold {
+    private Reservable item;
+    private Book copy;
+    private String memberId;
+    private int expiresDay;
+
+    public Hold(Reservable item, Book copy, String memberId, int expiresDay) {
+        this.item = item;
+        this.copy = copy;
+        this.memberId = memberId;
+        this.expiresDay = expiresDay;
+    }
+
+    public Reservable getItem() { return item; }
+    public Book getCopy() { return copy; }
+    public String getMemberId() { return memberId; }
+    // Last day the hold can be collected, as an epoch day
+    public int getExpiresDay() { return expiresDay; }
+}
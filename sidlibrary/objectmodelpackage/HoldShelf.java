@@ -0,0 +1,81 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Holds waiting for pickup, on a timing wheel with one slot per day. A sweep
+ * visits only the slots for the days that passed since the last sweep and
+ * expires the holds due in them, so thousands of expiring holds cost one pass
+ * over those slots rather than a scan of every title's queue. Holds due more
+ * than a wheel's turn ahead share a slot with nearer days and are skipped
+ * until their own day comes round.
+ */
+public class HoldShelf {
+    private static final int DEFAULT_SLOTS = 64;
+
+    private final ArrayList<LinkedHashSet<Hold>> slots;
+    private final HashMap<Hold, Integer> slotOf = new HashMap<>();
+    // Every hold with expiresDay up to this day has been expired
+    private int sweptThrough = LoanDates.NO_DATE;
+
+    public HoldShelf() {
+        this(DEFAULT_SLOTS);
+    }
+
+    public HoldShelf(int slotCount) {
+        slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new LinkedHashSet<Hold>());
+        }
+    }
+
+    public synchronized void add(Hold hold) {
+        int day = hold.getExpiresDay();
+        if (sweptThrough != LoanDates.NO_DATE && day <= sweptThrough) {
+            // Already past its day; park it where the next sweep looks first
+            day = sweptThrough + 1;
+        }
+        int slot = slotFor(day);
+        slots.get(slot).add(hold);
+        slotOf.put(hold, slot);
+    }
+
+    public synchronized boolean remove(Hold hold) {
+        Integer slot = slotOf.remove(hold);
+        return slot != null && slots.get(slot).remove(hold);
+    }
+
+    // Removes and returns every hold whose last pickup day is before today
+    public synchronized List<Hold> expire(int today) {
+        List<Hold> expired = new ArrayList<>();
+        int through = today - 1;
+        if (sweptThrough != LoanDates.NO_DATE && through <= sweptThrough) return expired;
+        long days = sweptThrough == LoanDates.NO_DATE ? slots.size() : (long) through - sweptThrough;
+        int visits = (int) Math.min(days, slots.size());
+        for (int i = 0; i < visits; i++) {
+            Iterator<Hold> it = slots.get(slotFor(through - i)).iterator();
+            while (it.hasNext()) {
+                Hold hold = it.next();
+                if (hold.getExpiresDay() <= through) {
+                    it.remove();
+                    slotOf.remove(hold);
+                    expired.add(hold);
+                }
+            }
+        }
+        sweptThrough = through;
+        return expired;
+    }
+
+    public synchronized int size() {
+        return slotOf.size();
+    }
+
+    private int slotFor(int day) {
+        return Math.floorMod(day, slots.size());
+    }
+}
@@ -0,0 +1,76 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate-free list of title ids backed by a growable int array.
+ * Title ids are handed out in increasing order, so adds are appends.
+ */
+public class IntPostings {
+    static final int[] EMPTY = new int[0];
+
+    private int[] ids = new int[4];
+    private int size;
+
+    public void add(int id) {
+        if (size > 0 && ids[size - 1] >= id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) return;
+            insertAt(-at - 1, id);
+            return;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        ids[size++] = id;
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public int size() { return size; }
+
+    public int get(int index) { return ids[index]; }
+
+    public int[] toArray() { return Arrays.copyOf(ids, size); }
+
+    private void insertAt(int index, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) out[n++] = a[i++];
+            else if (i == a.length || b[j] < a[i]) out[n++] = b[j++];
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+}
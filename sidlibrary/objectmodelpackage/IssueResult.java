@@ -0,0 +1,21 @@
+package sidlibrary.objectmodelpackage;
+
+/**
+ * Per-title result of an issue request; book is only set when the title was issued
+ */
+public class IssueResult {
+    private String bookName;
+    private IssueStatus status;
+    private Book book;
+
+    public IssueResult(String bookName, IssueStatus status, Book book) {
+        this.bookName = bookName;
+        this.status = status;
+        this.book = book;
+    }
+
+    public String getBookName() { return bookName; }
+    public IssueStatus getStatus() { return status; }
+    public Book getBook() { return book; }
+    public boolean isIssued() { return status == IssueStatus.ISSUED; }
+}
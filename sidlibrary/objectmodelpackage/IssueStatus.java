@@ -0,0 +1,15 @@
+package sidlibrary.objectmodelpackage;
+
+/**
+ * Outcome of issuing one title at the circulation desk
+ */
+public enum IssueStatus {
+    ISSUED,
+    STUDENT_NOT_FOUND,
+    NO_LIBRARY_ACCESS,
+    NO_RULES,
+    NOT_IN_LIBRARY,
+    OUT_OF_STOCK,
+    LIMIT_REACHED,
+    ROLLED_BACK
+}
@@ -167,33 +167,12 @@ public class LibAddBook {
     public static void addBookFunction(Library lib, Book book) {
         book.addBook();
         book.setPendingReturn(false);
-
-        Book foundBook = checkBookAvailable(lib, book.getBookName());
-
-        if (foundBook != null) {
-            Books books = lib.findBooksCollection(book.getBookName());
-            if (books != null) {
-                Book newBook = new Book(foundBook);
-                books.addBookToList(newBook);
-                books.setNumOfCopies(books.getNumOfCopies() + 1);
-            }
-        } else {
-            Books books = new Books();
-            books.setNumOfCopies(1);
-            books.addBookToList(book);
-            lib.addBookToLibrary(books);
-        }
+        lib.addCopy(book);
     }
 
     private static Book checkBookAvailable(Library library, String getBookName) {
-        for (Books books : booksArrayList) {
-            for (Book book : books.getBooks()) {
-                if (book.getBookName().equalsIgnoreCase(getBookName) && !book.isPendingReturn()) {
-                    return book;
-                }
-            }
-        }
-        return null;
+        Books books = library.findBooksCollectionIgnoreCase(getBookName);
+        return books != null ? books.findFreeCopy(getBookName) : null;
     }
 
     private static void testLibraryPolymorphism(Library library) {
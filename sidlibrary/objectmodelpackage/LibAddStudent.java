@@ -5,7 +5,7 @@ import gov.nasa.jpf.symbc.Debug;
 import java.util.*;
 
 public class LibAddStudent {
-    private static ArrayList<Student> students;
+    private static MemberRegistry students;
     private static Library comsatsLibrary;
 
     public static void main(String[] args) {
@@ -48,7 +48,7 @@ public class LibAddStudent {
         }
         comsatsLibrary = library;
         
-        students = new ArrayList<>();
+        students = new MemberRegistry();
         
         // Setup: Add existing student if needed
         if (studentAlreadyExists == 1) {
@@ -109,7 +109,8 @@ public class LibAddStudent {
             String name = student.getStudentName();
             String program = student.getProgramEnrolledIn();
             String institute = student.getInstituteName();
-            ArrayList<Book> issuedBooks = student.getIssuedBooks();
+            Collection<Book> issuedBooks = student.getIssuedBooks();
+            int issuedCount = student.getIssuedCount();
             int fine = student.getFine();
             
             // Test issueCard
@@ -165,17 +166,13 @@ public class LibAddStudent {
     }
 
     public static Student findStudent(String studentId) {
-        for (Student student : students) {
-            if (student.getStudentId().equals(studentId)) {
-                return student;
-            }
-        }
-        return null;
+        return students.find(studentId);
     }
 
     private static void addStudents(Student student) {
-        student.addStudent();
-        students.add(student);
+        if (students.register(student)) {
+            student.addStudent();
+        }
     }
 
     private static void testStudentPolymorphism(Student student) {
@@ -2,11 +2,11 @@
 package sidlibrary.objectmodelpackage;
 
 import gov.nasa.jpf.symbc.Debug;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class LibIssueBook {
-    private static ArrayList<Student> students;
+    private static final OverdueIndex overdue = new OverdueIndex();
+    private static MemberRegistry students;
     private static Library comsatsLibrary;
     private static ArrayList<Books> booksArrayList;
     private static boolean outOfStock = false;
@@ -98,7 +98,7 @@ public class LibIssueBook {
             }
         }
         
-        students = new ArrayList<>();
+        students = new MemberRegistry();
         Student student = null;
         
         if (hasStudent == 1) {
@@ -163,7 +163,7 @@ public class LibIssueBook {
             Renewable renewable = (Renewable) book;
             String borrowerId = Debug.makeSymbolicString("borrowerId");
             if (renewable.canRenew(borrowerId)) {
-                int newDays = renewable.renew(10);
+                int newDays = renewLoan(book, 10);
             }
         }
         
@@ -215,19 +215,26 @@ public class LibIssueBook {
         Student student = findStudent(studentId);
         if (student != null && student.hasLibraryAccess("COMSATS")) {
             RulesResultSet resultSet = maxBookStudentCanIssue("COMSATS", student.getInstituteName(), student.getProgramEnrolledIn());
-            if (resultSet != null && student.getIssuedBooks().size() < resultSet.getNumOfBooks()) {
-                bookFound.setBorrowerId(student.getStudentId());
-                SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-                Calendar c = Calendar.getInstance();
-                bookFound.setBorrowDate(sdf.format(c.getTime()));
-                c.add(Calendar.DATE, resultSet.getNumOfDays());
-                bookFound.setReturnDate(sdf.format(c.getTime()));
-                bookFound.setPendingReturn(true);
+            if (resultSet != null && student.getIssuedCount() < resultSet.getNumOfBooks()) {
+                if (!bookFound.tryClaim(student.getStudentId())) return;
+                int today = LoanDates.today();
+                bookFound.setBorrowDay(today);
+                bookFound.setReturnDay(today + resultSet.getNumOfDays());
                 student.addBookToIssueList(bookFound);
+                overdue.add(bookFound);
             }
         }
     }
 
+    // renew returns the days passed in plus any extension; a copy on loan moves to its new due day
+    private static int renewLoan(Book copy, int currentDays) {
+        int newDays = ((Renewable) copy).renew(currentDays);
+        if (copy.isPendingReturn() && copy.getReturnDay() != LoanDates.NO_DATE) {
+            overdue.reschedule(copy, copy.getReturnDay() + newDays - currentDays);
+        }
+        return newDays;
+    }
+
     private static RulesResultSet maxBookStudentCanIssue(String bookLocation, String instituteName, String programEnrolledIn) {
         if (bookLocation.equals("COMSATS")) {
             return comsatsLibrary.comsatsRules(instituteName, programEnrolledIn);
@@ -236,51 +243,26 @@ public class LibIssueBook {
     }
 
     public static Student findStudent(String studentId) {
-        for (Student student : students) {
-            if (student.getStudentId().equals(studentId)) {
-                return student;
-            }
-        }
-        return null;
+        return students.find(studentId);
     }
 
     private static Book checkBookAvailable(Library library, String getBookName) {
-        outOfStock = false;
-        for (Books books : booksArrayList) {
-            for (Book book : books.getBooks()) {
-                if (book.getBookName().equalsIgnoreCase(getBookName) && !book.isPendingReturn()) {
-                    return book;
-                }
-            }
-        }
-        outOfStock = true;
-        return null;
+        Books books = library.findBooksCollectionIgnoreCase(getBookName);
+        Book book = books != null ? books.findFreeCopy(getBookName) : null;
+        outOfStock = book == null;
+        return book;
     }
 
     public static void addBookFunction(Library lib, Book book) {
         book.addBook();
         book.setPendingReturn(false);
-
-        Book foundBook = checkBookAvailable(lib, book.getBookName());
-
-        if (foundBook != null) {
-            Books books = lib.findBooksCollection(book.getBookName());
-            if (books != null) {
-                Book newBook = new Book(foundBook);
-                books.addBookToList(newBook);
-                books.setNumOfCopies(books.getNumOfCopies() + 1);
-            }
-        } else {
-            Books books = new Books();
-            books.setNumOfCopies(1);
-            books.addBookToList(book);
-            lib.addBookToLibrary(books);
-        }
+        lib.addCopy(book);
     }
 
     private static void addStudents(Student student) {
-        student.addStudent();
-        students.add(student);
+        if (students.register(student)) {
+            student.addStudent();
+        }
     }
 
     private static void issueLibraryCard(Library library, String studentId) {
@@ -5,7 +5,7 @@ import gov.nasa.jpf.symbc.Debug;
 import java.util.*;
 
 public class LibIssueCard {
-    private static ArrayList<Student> students;
+    private static MemberRegistry students;
     private static Library comsatsLibrary;
 
     public static void main(String[] args) {
@@ -50,7 +50,7 @@ public class LibIssueCard {
         }
         comsatsLibrary = library;
         
-        students = new ArrayList<>();
+        students = new MemberRegistry();
         Student student = null;
         
         if (hasStudent == 1) {
@@ -150,17 +150,13 @@ public class LibIssueCard {
     }
 
     public static Student findStudent(String studentId) {
-        for (Student student : students) {
-            if (student.getStudentId().equals(studentId)) {
-                return student;
-            }
-        }
-        return null;
+        return students.find(studentId);
     }
 
     private static void addStudents(Student student) {
-        student.addStudent();
-        students.add(student);
+        if (students.register(student)) {
+            student.addStudent();
+        }
     }
 
     private static void issueLibraryCard(Library library, String studentId) {
@@ -2,11 +2,11 @@
 package sidlibrary.objectmodelpackage;
 
 import gov.nasa.jpf.symbc.Debug;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class LibRenewBook {
-    private static ArrayList<Student> students;
+    private static final OverdueIndex overdue = new OverdueIndex();
+    private static MemberRegistry students;
     private static Library comsatsLibrary;
     private static ArrayList<Books> booksArrayList;
 
@@ -77,7 +77,7 @@ public class LibRenewBook {
         }
         addBookFunction(library, book);
         
-        students = new ArrayList<>();
+        students = new MemberRegistry();
         Student student = null;
         
         if (hasStudent == 1) {
@@ -111,7 +111,7 @@ public class LibRenewBook {
                         issuedBook.getBorrowerId().equals(studentId)) {
                         // Pre-renew once
                         if (renewable.canRenew(studentId)) {
-                            renewable.renew(10);
+                            renewLoan(book, 10);
                         }
                     }
                 }
@@ -135,15 +135,15 @@ public class LibRenewBook {
             if (canRenew && hasBookIssued == 1 && correctBorrowerId == 1) {
                 // Attempt renewals based on renewalAttempts value
                 if (renewalAttempts <= 2) {
-                    int newDays1 = renewable.renew(currentDays);
+                    int newDays1 = renewLoan(book, currentDays);
                     int count1 = renewable.getRenewalCount();
                 }
                 if (renewalAttempts > 2 && renewalAttempts <= 4) {
-                    int newDays2 = renewable.renew(currentDays);
+                    int newDays2 = renewLoan(book, currentDays);
                     int count2 = renewable.getRenewalCount();
                 }
                 if (renewalAttempts > 4) {
-                    int newDays3 = renewable.renew(currentDays);
+                    int newDays3 = renewLoan(book, currentDays);
                     int count3 = renewable.getRenewalCount();
                 }
             }
@@ -193,19 +193,26 @@ public class LibRenewBook {
         Student student = findStudent(studentId);
         if (student != null && student.hasLibraryAccess("COMSATS")) {
             RulesResultSet resultSet = maxBookStudentCanIssue("COMSATS", student.getInstituteName(), student.getProgramEnrolledIn());
-            if (resultSet != null && student.getIssuedBooks().size() < resultSet.getNumOfBooks()) {
-                bookFound.setBorrowerId(student.getStudentId());
-                SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-                Calendar c = Calendar.getInstance();
-                bookFound.setBorrowDate(sdf.format(c.getTime()));
-                c.add(Calendar.DATE, resultSet.getNumOfDays());
-                bookFound.setReturnDate(sdf.format(c.getTime()));
-                bookFound.setPendingReturn(true);
+            if (resultSet != null && student.getIssuedCount() < resultSet.getNumOfBooks()) {
+                if (!bookFound.tryClaim(student.getStudentId())) return;
+                int today = LoanDates.today();
+                bookFound.setBorrowDay(today);
+                bookFound.setReturnDay(today + resultSet.getNumOfDays());
                 student.addBookToIssueList(bookFound);
+                overdue.add(bookFound);
             }
         }
     }
 
+    // renew returns the days passed in plus any extension; a copy on loan moves to its new due day
+    private static int renewLoan(Book copy, int currentDays) {
+        int newDays = ((Renewable) copy).renew(currentDays);
+        if (copy.isPendingReturn() && copy.getReturnDay() != LoanDates.NO_DATE) {
+            overdue.reschedule(copy, copy.getReturnDay() + newDays - currentDays);
+        }
+        return newDays;
+    }
+
     private static RulesResultSet maxBookStudentCanIssue(String bookLocation, String instituteName, String programEnrolledIn) {
         if (bookLocation.equals("COMSATS")) {
             return comsatsLibrary.comsatsRules(instituteName, programEnrolledIn);
@@ -214,49 +221,24 @@ public class LibRenewBook {
     }
 
     public static Student findStudent(String studentId) {
-        for (Student student : students) {
-            if (student.getStudentId().equals(studentId)) {
-                return student;
-            }
-        }
-        return null;
+        return students.find(studentId);
     }
 
     private static Book checkBookAvailable(Library library, String getBookName) {
-        for (Books books : booksArrayList) {
-            for (Book book : books.getBooks()) {
-                if (book.getBookName().equalsIgnoreCase(getBookName) && !book.isPendingReturn()) {
-                    return book;
-                }
-            }
-        }
-        return null;
+        Books books = library.findBooksCollectionIgnoreCase(getBookName);
+        return books != null ? books.findFreeCopy(getBookName) : null;
     }
 
     public static void addBookFunction(Library lib, Book book) {
         book.addBook();
         book.setPendingReturn(false);
-
-        Book foundBook = checkBookAvailable(lib, book.getBookName());
-
-        if (foundBook != null) {
-            Books books = lib.findBooksCollection(book.getBookName());
-            if (books != null) {
-                Book newBook = new Book(foundBook);
-                books.addBookToList(newBook);
-                books.setNumOfCopies(books.getNumOfCopies() + 1);
-            }
-        } else {
-            Books books = new Books();
-            books.setNumOfCopies(1);
-            books.addBookToList(book);
-            lib.addBookToLibrary(books);
-        }
+        lib.addCopy(book);
     }
 
     private static void addStudents(Student student) {
-        student.addStudent();
-        students.add(student);
+        if (students.register(student)) {
+            student.addStudent();
+        }
     }
 
     private static void issueLibraryCard(Library library, String studentId) {
@@ -2,12 +2,14 @@
 package sidlibrary.objectmodelpackage;
 
 import gov.nasa.jpf.symbc.Debug;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class LibReturnBook {
-    private static final int perDayFine = 10;
-    private static ArrayList<Student> students;
+    // Today's date for fine calculation is fixed at 26/06/2021
+    private static final int TODAY = LoanDates.of(2021, 6, 26);
+    private static final FineEngine fineEngine = new FineEngine(LoanDates.fixedClock(TODAY));
+    private static final OverdueIndex overdue = new OverdueIndex();
+    private static MemberRegistry students;
     private static Library comsatsLibrary;
     private static ArrayList<Books> booksArrayList;
     private static boolean outOfStock = false;
@@ -84,7 +86,7 @@ public class LibReturnBook {
         }
         addBookFunction(library, book);
         
-        students = new ArrayList<>();
+        students = new MemberRegistry();
         Student student = null;
         
         if (hasStudent == 1) {
@@ -109,25 +111,21 @@ public class LibReturnBook {
                 issueBook(library, bookName, studentId);                
                 Book issuedBook = checkBookAvailable(library, bookName);
                 if (issuedBook != null && student != null) {
-                    // FORCE LATE RETURNS: Use symbolic constraint to test calculateFine branches
-                    // Today's date in calculateFine is hardcoded as "26/06/2021"
+                    // FORCE LATE RETURNS: Use symbolic constraint to test the fine branches
+                    // calculateFine accrues through fineEngine, whose clock is fixed at TODAY (26/06/2021)
                     // returnDate is the EXPECTED return date (when book should be returned)
-                    // calculateFine compares: returnDate - today
-                    // If returnDate < today (days < 0): book is LATE -> triggers fine calculation (line 328)
-                    // If returnDate >= today (days >= 0): book is ON TIME -> no fine
-                    
-                    SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-                    Calendar c = Calendar.getInstance();
+                    // FineEngine.outstanding compares: overdueDays = TODAY - returnDate
+                    // If returnDate < today (overdueDays > 0): book is LATE -> accrue posts a fine
+                    // If returnDate >= today (overdueDays <= 0): book is ON TIME -> outstanding is 0, nothing posted
                     
+                    // Unindex it before its return day is overwritten below
+                    overdue.remove(issuedBook);
                     // Set borrow date to a fixed past date (June 1, 2021)
-                    String borrowDateStr = "01/06/2021";
-                    issuedBook.setBorrowDate(borrowDateStr);
+                    issuedBook.setBorrowDay(LoanDates.of(2021, 6, 1));
                     
                     // Expected return date = borrowDate + maxDays (12 days for COMSATS)
                     // So expected return = June 13, 2021
-                    c.set(2021, 5, 1); // June 1, 2021 (month is 0-indexed, so 5 = June)
-                    c.add(Calendar.DATE, 12); // Add maxDays (12)
-                    String expectedReturnDateStr = sdf.format(c.getTime()); // "13/06/2021"
+                    int expectedReturnDay = issuedBook.getBorrowDay() + 12; // Add maxDays (12)
                     
                     // FORCE LATE RETURN: Use constraint to ensure returnDate < today
                     // Constraint: if forceLateReturn == 1, then days_borrowed > limit (12 days)
@@ -135,21 +133,18 @@ public class LibReturnBook {
                     if (forceLateReturn == 1) {
                         // Force late: set returnDate to a date before today (26/06/2021)
                         // Expected return (13/06) is already before today (26/06), so it's late
-                        // This will trigger the branch at line 328: if (days < 0)
-                        issuedBook.setReturnDate(expectedReturnDateStr); // "13/06/2021" < "26/06/2021" = LATE
-                        // Add constraint: ensure we're testing late return scenario
-                        // The date comparison in calculateFine will be: 13/06 - 26/06 = -13 days (late)
+                        // This takes the late path in FineEngine.outstanding, so accrue adds to the student's fine
+                        issuedBook.setReturnDay(expectedReturnDay); // 13/06/2021 < 26/06/2021 = LATE
                     } else {
                         // Force on-time: set returnDate to today or future to avoid fine
-                        // This tests the branch where days >= 0 (no fine)
-                        c.set(2021, 5, 26); // June 26, 2021 (today) - on time
-                        String onTimeReturnDateStr = sdf.format(c.getTime());
-                        issuedBook.setReturnDate(onTimeReturnDateStr); // "26/06/2021" >= "26/06/2021" = ON TIME
+                        // This tests the path where overdueDays <= 0 (no fine)
+                        issuedBook.setReturnDay(TODAY); // 26/06/2021 >= 26/06/2021 = ON TIME
                     }
                     
                     issuedBook.setPendingReturn(true);
                     issuedBook.setBorrowerId(studentId);
                     student.addBookToIssueList(issuedBook);
+                    overdue.add(issuedBook);
                 }
             }
         }        
@@ -182,7 +177,7 @@ public class LibReturnBook {
             Renewable renewable = (Renewable) book;
             String borrowerId = Debug.makeSymbolicString("borrowerId");
             if (renewable.canRenew(borrowerId)) {
-                int newDays = renewable.renew(10);
+                int newDays = renewLoan(book, 10);
             }
         }        
         if (book instanceof Reservable) {
@@ -232,42 +227,20 @@ public class LibReturnBook {
 
         //@ assert !book.isPendingReturn();
 
-        Book foundBook = checkBookAvailable(lib, book.getBookName());
-        //@ assert foundBook == null || foundBook.getBookName().equals(book.getBookName());
-
-        if (foundBook != null) {
-            //@ assume lib.findBooksCollection(book.getBookName()) != null;
-            Books books = lib.findBooksCollection(book.getBookName());
-            if (books != null) {
-                Book newBook = new Book(foundBook);
-                books.addBookToList(newBook);
-                books.setNumOfCopies(books.getNumOfCopies() + 1);
-                //@ assert books.getNumOfCopies() > 0;
-            }
-        } else {
-            Books books = new Books();
-            books.setNumOfCopies(1);
-            books.addBookToList(book);
-            lib.addBookToLibrary(books);
-            //@ assert books.getNumOfCopies() == 1;
-        }
+        Books books = lib.addCopy(book);
+        //@ assert books.getNumOfCopies() > 0;
     }
 
     private static void returnBook(Library library, String studentId, String bookName) {
         Student student = findStudent(studentId);
         if (student != null) {
-            ArrayList<Book> bookList = student.getIssuedBooks();
+            Collection<Book> bookList = student.getIssuedBooks();
             if (!bookList.isEmpty()) {
-                for (Book book : bookList) {
-                    calculateFine(student, book.getBorrowDate(), book.getReturnDate());
-                }
-                for (int i = 0; i < bookList.size(); i++) {
-                    Book book = bookList.get(i);
-                    if (book.getBookName().equalsIgnoreCase(bookName)) {
-                        bookList.remove(i);
-                        book.setPendingReturn(false);
-                        break;
-                    }
+                Book book = student.removeIssuedBook(bookName);
+                if (book != null) {
+                    overdue.remove(book);
+                    calculateFine(student, book);
+                    book.setPendingReturn(false);
                 }
             }
         }
@@ -280,19 +253,26 @@ public class LibReturnBook {
         Student student = findStudent(studentId);
         if (student != null && student.hasLibraryAccess("COMSATS")) {
             RulesResultSet resultSet = maxBookStudentCanIssue("COMSATS", student.getInstituteName(), student.getProgramEnrolledIn());
-            if (resultSet != null && student.getIssuedBooks().size() < resultSet.getNumOfBooks()) {
-                bookFound.setBorrowerId(student.getStudentId());
-                SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-                Calendar c = Calendar.getInstance();
-                bookFound.setBorrowDate(sdf.format(c.getTime()));
-                c.add(Calendar.DATE, resultSet.getNumOfDays());
-                bookFound.setReturnDate(sdf.format(c.getTime()));
-                bookFound.setPendingReturn(true);
+            if (resultSet != null && student.getIssuedCount() < resultSet.getNumOfBooks()) {
+                if (!bookFound.tryClaim(student.getStudentId())) return;
+                int today = LoanDates.today();
+                bookFound.setBorrowDay(today);
+                bookFound.setReturnDay(today + resultSet.getNumOfDays());
                 student.addBookToIssueList(bookFound);
+                overdue.add(bookFound);
             }
         }
     }
 
+    // renew returns the days passed in plus any extension; a copy on loan moves to its new due day
+    private static int renewLoan(Book copy, int currentDays) {
+        int newDays = ((Renewable) copy).renew(currentDays);
+        if (copy.isPendingReturn() && copy.getReturnDay() != LoanDates.NO_DATE) {
+            overdue.reschedule(copy, copy.getReturnDay() + newDays - currentDays);
+        }
+        return newDays;
+    }
+
     private static RulesResultSet maxBookStudentCanIssue(String bookLocation, String instituteName, String programEnrolledIn) {
         if (bookLocation.equals("COMSATS")) {
             return comsatsLibrary.comsatsRules(instituteName, programEnrolledIn);
@@ -301,51 +281,25 @@ public class LibReturnBook {
     }
 
     public static Student findStudent(String studentId) {
-        for (Student student : students) {
-            if (student.getStudentId().equals(studentId)) {
-                return student;
-            }
-        }
-        return null; // Return null if no student is found
+        return students.find(studentId);
     }
 
     private static Book checkBookAvailable(Library library, String getBookName) {
-        outOfStock = false;
-        for (Books books : booksArrayList) {
-            for (Book book : books.getBooks()) {
-                if (book.getBookName().equalsIgnoreCase(getBookName) && !book.isPendingReturn()) {
-                    return book;
-                }
-            }
-        }
-        outOfStock = true;
-        return null;
+        Books books = library.findBooksCollectionIgnoreCase(getBookName);
+        Book book = books != null ? books.findFreeCopy(getBookName) : null;
+        outOfStock = book == null;
+        return book;
     }
 
     private static void addStudents(Student student) {
-        student.addStudent();
-        students.add(student);
+        if (students.register(student)) {
+            student.addStudent();
+        }
     }
 
-    private static void calculateFine(Student student, String borrowDate, String returnDate) {
-        String todaysDate = "26/06/2021";
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-        try {
-            java.util.Date returnDateObj = sdf.parse(returnDate);
-            java.util.Date todayDateObj = sdf.parse(todaysDate);
-            
-            // Calculate difference in milliseconds, then convert to days
-            long diffInMillis = returnDateObj.getTime() - todayDateObj.getTime();
-            long days = diffInMillis / (24 * 60 * 60 * 1000);
-
-            if (days < 0) {
-                int numOfDays = (int) Math.abs(days);
-                int totalFine = student.getFine() + numOfDays * perDayFine;
-                student.setFine(totalFine);
-            }
-        } catch (Exception e) {
-            System.out.println("Date parsing failed: " + e.getMessage());
-        }
+    // Posts the late fee for the returned copy only, at its type's rate
+    private static void calculateFine(Student student, Book book) {
+        fineEngine.accrue(student, book, TODAY);
     }
 
     private static void issueLibraryCard(Library library, String studentId) {
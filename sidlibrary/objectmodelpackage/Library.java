@@ -3,13 +3,30 @@ package sidlibrary.objectmodelpackage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Library class - extends Institute and implements abstract methods
  */
 public class Library extends Institute {
     private ArrayList<Books> booksArrayList = new ArrayList<>();
+    // Title -> collection, kept in step with booksArrayList so lookups avoid scanning every copy
+    private ConcurrentHashMap<String, Books> titleIndex = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, Books> normalizedTitleIndex = new ConcurrentHashMap<>();
+    private TitleLocks titleLocks = new TitleLocks();
+    private CatalogSearch catalogSearch = new CatalogSearch();
+    // Bumped whenever a title or copy is catalogued; SearchCache drops results from older versions
+    private AtomicLong catalogVersion = new AtomicLong();
     private int forUG, forPG, forPHD, maxDays;
+    // [1 if the student's institute is COMSATS else 0][ProgramType ordinal]; built on first use
+    // because subclass fields the rules depend on are not set yet in this constructor
+    private volatile RulesResultSet[][] rulesTable;
+    // Builds and invalidations take this lock, so a build that read the old fields
+    // can't publish its table after invalidateRules has cleared it
+    private final Object rulesLock = new Object();
 
     public Library(String instituteName) {
         super(instituteName);
@@ -35,32 +52,120 @@ public class Library extends Institute {
         return booksArrayList;
     }
 
+    public TitleLocks getTitleLocks() {
+        return titleLocks;
+    }
+
+    public CatalogSearch getCatalogSearch() {
+        return catalogSearch;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
     public void addBookToLibrary(Books books) {
-        booksArrayList.add(books);
+        synchronized (booksArrayList) {
+            booksArrayList.add(books);
+        }
+        for (Book book : books.getBooks()) {
+            indexTitle(book.getBookName(), books);
+            catalogSearch.index(book, books);
+        }
+        catalogVersion.incrementAndGet();
     }
 
-    public Books findBooksCollection(String findThisBook) {
-        for (Books books : booksArrayList) {
-            for (Book book : books.getBooks()) {
-                if (book.getBookName().equals(findThisBook)) {
-                    return books;
-                }
+    // Appends a copy to the title's collection, or catalogues the title if it is new.
+    // Runs under the title's stripe so two desks adding the same new title cannot
+    // both create a collection for it.
+    public Books addCopy(Book book) {
+        ReentrantLock lock = titleLocks.lockFor(book.getBookName());
+        lock.lock();
+        try {
+            Books books = findBooksCollectionIgnoreCase(book.getBookName());
+            if (books != null) {
+                Book copy = books.findCopy(book.getBookName()).newCopy();
+                books.addBookToList(copy);
+                books.setNumOfCopies(books.getNumOfCopies() + 1);
+                catalogSearch.index(copy, books);
+                catalogVersion.incrementAndGet();
+            } else {
+                books = new Books();
+                books.setNumOfCopies(1);
+                books.addBookToList(book);
+                addBookToLibrary(books);
             }
+            return books;
+        } finally {
+            lock.unlock();
         }
-        return null;
+    }
+
+    public Books findBooksCollection(String findThisBook) {
+        if (findThisBook == null) return null;
+        return titleIndex.get(findThisBook);
+    }
+
+    public Books findBooksCollectionIgnoreCase(String findThisBook) {
+        if (findThisBook == null) return null;
+        return normalizedTitleIndex.get(normalizeTitle(findThisBook));
+    }
+
+    // First collection registered for a title wins, matching the old front-to-back scan
+    private void indexTitle(String bookName, Books books) {
+        if (bookName == null) return;
+        titleIndex.putIfAbsent(bookName, books);
+        normalizedTitleIndex.putIfAbsent(normalizeTitle(bookName), books);
+    }
+
+    static String normalizeTitle(String bookName) {
+        return bookName.toLowerCase(Locale.ROOT);
     }
 
     public RulesResultSet comsatsRules(String instituteName, String programEnrolledIn) {
-        if (instituteName.equals("COMSATS")) {
-            switch (programEnrolledIn) {
-                case "UG": return new RulesResultSet(forUG, maxDays);
-                case "PG": return new RulesResultSet(forPG, maxDays);
-                case "PHD": return new RulesResultSet(forPHD, maxDays);
+        RulesResultSet[][] table = rulesTable;
+        if (table == null) {
+            table = compileRules();
+        }
+        int institute = "COMSATS".equals(instituteName) ? 1 : 0;
+        return table[institute][ProgramType.of(programEnrolledIn).ordinal()];
+    }
+
+    // Subclasses override this instead of comsatsRules; it runs once per cell when the table is built
+    protected RulesResultSet buildRules(boolean comsatsStudent, ProgramType program) {
+        if (comsatsStudent) {
+            switch (program) {
+                case UG: return new RulesResultSet(forUG, maxDays);
+                case PG: return new RulesResultSet(forPG, maxDays);
+                case PHD: return new RulesResultSet(forPHD, maxDays);
+                default: return null;
             }
         }
         return null;
     }
 
+    // Call when a field that buildRules reads changes
+    protected void invalidateRules() {
+        synchronized (rulesLock) {
+            rulesTable = null;
+        }
+    }
+
+    private RulesResultSet[][] compileRules() {
+        synchronized (rulesLock) {
+            RulesResultSet[][] table = rulesTable;
+            if (table != null) return table;
+            ProgramType[] programs = ProgramType.values();
+            table = new RulesResultSet[2][programs.length];
+            for (ProgramType program : programs) {
+                table[0][program.ordinal()] = buildRules(false, program);
+                table[1][program.ordinal()] = buildRules(true, program);
+            }
+            rulesTable = table;
+            return table;
+        }
+    }
+
     // Implementation of abstract methods from Institute
     @Override
     public boolean validateMembership(String memberId) {
@@ -84,6 +189,12 @@ public class Library extends Institute {
                            "Reference Services", "Inter-library Loan");
     }
 
+    // Whether the student belongs to this library and pays its membership fee;
+    // here that takes a library card for the institute
+    public boolean isMember(Student student) {
+        return student.hasLibraryAccess(getInstituteName());
+    }
+
     @Override
     public double calculateMembershipFee(String memberType) {
         switch (memberType) {
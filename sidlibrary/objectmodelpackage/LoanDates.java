@@ -0,0 +1,43 @@
+package sidlibrary.objectmodelpackage;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Loan dates are stored as epoch days (days since 1970-01-01) so due-date
+ * and overdue arithmetic is plain int math. Strings only exist for display.
+ */
+public final class LoanDates {
+    public static final int NO_DATE = Integer.MIN_VALUE;
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private LoanDates() {}
+
+    public static int today() {
+        return (int) LocalDate.now().toEpochDay();
+    }
+
+    public static int today(Clock clock) {
+        return (int) LocalDate.now(clock).toEpochDay();
+    }
+
+    // Clock pinned to the start of the given day, for fixtures with a hardcoded "today"
+    public static Clock fixedClock(int epochDay) {
+        return Clock.fixed(LocalDate.ofEpochDay(epochDay).atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC);
+    }
+
+    public static int of(int year, int month, int dayOfMonth) {
+        return (int) LocalDate.of(year, month, dayOfMonth).toEpochDay();
+    }
+
+    public static int parse(String date) {
+        return (int) LocalDate.parse(date, DISPLAY_FORMAT).toEpochDay();
+    }
+
+    public static String format(int epochDay) {
+        if (epochDay == NO_DATE) return null;
+        return LocalDate.ofEpochDay(epochDay).format(DISPLAY_FORMAT);
+    }
+}
@@ -0,0 +1,57 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enrolled students keyed by studentId. Lookups are hash lookups rather
+ * than a walk over every student, and an ID can only be registered once.
+ */
+public class MemberRegistry {
+    private Map<String, Student> studentsById;
+
+    public MemberRegistry() {
+        this(false);
+    }
+
+    // The concurrent variant can be shared by several desks; the default keeps insertion order
+    public MemberRegistry(boolean concurrent) {
+        if (concurrent) {
+            studentsById = new ConcurrentHashMap<>();
+        } else {
+            studentsById = new LinkedHashMap<>();
+        }
+    }
+
+    // Returns false if the ID is missing or already taken
+    public boolean register(Student student) {
+        String studentId = student.getStudentId();
+        if (studentId == null) return false;
+        return studentsById.putIfAbsent(studentId, student) == null;
+    }
+
+    public Student find(String studentId) {
+        if (studentId == null) return null;
+        return studentsById.get(studentId);
+    }
+
+    public boolean contains(String studentId) {
+        return find(studentId) != null;
+    }
+
+    public Student remove(String studentId) {
+        if (studentId == null) return null;
+        return studentsById.remove(studentId);
+    }
+
+    public int size() {
+        return studentsById.size();
+    }
+
+    public Collection<Student> getStudents() {
+        return Collections.unmodifiableCollection(studentsById.values());
+    }
+}
@@ -7,38 +7,39 @@ import java.util.ArrayList;
  * Novels can be renewed multiple times
  */
 public class Novel extends Book implements Borrowable, Renewable, Searchable {
-    private String genre;
-    private int maxBorrowDays;
     private int renewalCount;
-    private int maxRenewals;
     private static final int NOVEL_MAX_DAYS = 21;
     private static final int NOVEL_MAX_RENEWALS = 2;
+    // Boost per CatalogSearch field: title, author, genre, edition
+    static final double[] RELEVANCE_WEIGHTS = {10.0, 8.0, 6.0, 0.0};
 
     public Novel(String bookName, String bookAuthor, String genre) {
-        super(bookName, bookAuthor);
-        this.genre = genre;
-        this.maxBorrowDays = NOVEL_MAX_DAYS;
+        super(TitleMetadata.forNovel(bookName, bookAuthor, genre));
         this.renewalCount = 0;
-        this.maxRenewals = NOVEL_MAX_RENEWALS;
     }
 
     public Novel(Novel novel) {
         super(novel);
-        this.genre = novel.getGenre();
-        this.maxBorrowDays = novel.getMaxBorrowDays();
         this.renewalCount = novel.getRenewalCount();
-        this.maxRenewals = novel.getMaxRenewals();
     }
 
     public Novel() {
         super();
-        this.maxBorrowDays = NOVEL_MAX_DAYS;
         this.renewalCount = 0;
-        this.maxRenewals = NOVEL_MAX_RENEWALS;
     }
 
-    public String getGenre() { return genre; }
-    public void setGenre(String genre) { this.genre = genre; }
+    private Novel(TitleMetadata metadata) {
+        super(metadata);
+        this.renewalCount = 0;
+    }
+
+    @Override
+    protected Book newCopy() {
+        return new Novel(getMetadata());
+    }
+
+    public String getGenre() { return getMetadata().getGenre(); }
+    public void setGenre(String genre) { setMetadata(getMetadata().withGenre(genre)); }
 
     // Borrowable interface implementation
     @Override
@@ -61,7 +62,7 @@ public class Novel extends Book implements Borrowable, Renewable, Searchable {
 
     @Override
     public int getMaxBorrowDays() {
-        return maxBorrowDays;
+        return NOVEL_MAX_DAYS;
     }
 
     @Override
@@ -77,21 +78,21 @@ public class Novel extends Book implements Borrowable, Renewable, Searchable {
         return isPendingReturn() && 
                getBorrowerId() != null && 
                getBorrowerId().equals(borrowerId) &&
-               renewalCount < maxRenewals;
+               renewalCount < NOVEL_MAX_RENEWALS;
     }
 
     @Override
     public int renew(int currentDays) {
-        if (renewalCount < maxRenewals) {
+        if (renewalCount < NOVEL_MAX_RENEWALS) {
             renewalCount++;
-            return currentDays + maxBorrowDays;
+            return currentDays + NOVEL_MAX_DAYS;
         }
         return currentDays;
     }
 
     @Override
     public int getMaxRenewals() {
-        return maxRenewals;
+        return NOVEL_MAX_RENEWALS;
     }
 
     @Override
@@ -103,6 +104,7 @@ public class Novel extends Book implements Borrowable, Renewable, Searchable {
     @Override
     public boolean matches(String query) {
         if (query == null) return false;
+        String genre = getGenre();
         String lowerQuery = query.toLowerCase();
         return getBookName().toLowerCase().contains(lowerQuery) ||
                getBookAuthor().toLowerCase().contains(lowerQuery) ||
@@ -111,22 +113,25 @@ public class Novel extends Book implements Borrowable, Renewable, Searchable {
 
     @Override
     public double getRelevanceScore(String query) {
-        if (!matches(query)) return 0.0;
+        if (query == null) return 0.0;
+        String genre = getGenre();
         double score = 0.0;
         String lowerQuery = query.toLowerCase();
-        if (getBookName().toLowerCase().contains(lowerQuery)) score += 10.0;
-        if (getBookAuthor().toLowerCase().contains(lowerQuery)) score += 8.0;
-        if (genre != null && genre.toLowerCase().contains(lowerQuery)) score += 6.0;
+        if (getBookName().toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.TITLE];
+        if (getBookAuthor().toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.AUTHOR];
+        if (genre != null && genre.toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.DETAIL];
         return score;
     }
 
     @Override
     public String getSearchableContent() {
+        String genre = getGenre();
         return getBookName() + " " + getBookAuthor() + " " + (genre != null ? genre : "");
     }
 
     @Override
     public void addBook() {
+        String genre = getGenre();
         System.out.println("Novel added: " + getBookName() + ", " + getBookAuthor() + 
                           ", Genre: " + genre);
     }
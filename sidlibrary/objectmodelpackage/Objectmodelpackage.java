@@ -1,15 +1,13 @@
 package sidlibrary.objectmodelpackage;
 
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 
 public class Objectmodelpackage {
- private static final int perDayFine = 10;
+    private static final int todaysDate = LoanDates.of(2021, 6, 26);
+    private static final FineEngine fineEngine = new FineEngine(LoanDates.fixedClock(todaysDate));
+    private static final OverdueIndex overdue = new OverdueIndex();
 
-    private static ArrayList<Student> students;
+    private static MemberRegistry students;
     private static Library comsatsLibrary;
     private static ArrayList<Books> booksArrayList;
     static Scanner scan=new Scanner(System.in);
@@ -18,7 +16,7 @@ public class Objectmodelpackage {
 
     public static void main(String[] args) {
 
-        students = new ArrayList<>();
+        students = new MemberRegistry();
 
         comsatsLibrary = new Library("COMSATS");
         Books books=new Books();
@@ -27,7 +25,9 @@ public class Objectmodelpackage {
         booksArrayList=comsatsLibrary.getBooksArrayList();
                 
 
-       students=new Student().displayStudents();
+        for(Student student : new Student().displayStudents()) {
+            students.register(student);
+        }
 
         while(true) {
 
@@ -116,19 +116,18 @@ public class Objectmodelpackage {
                 System.out.println("Registered Student Id: "+student.getStudentId());
                 System.out.println("Institute Name: "+student.getInstituteName());
                 System.out.println("Program Enrolled In: "+student.getProgramEnrolledIn());
-                ArrayList<Book> bookList = student.getIssuedBooks();
+                Collection<Book> bookList = student.getIssuedBooks();
                 System.out.println();
                 if(bookList.size() > 0) {
                     System.out.println("Your issued Books-");
                     for(Book book: bookList) {
-                        calculateFine(student, book.getBorrowDate(), book.getReturnDate());
-                        System.out.println("Name: "+book.getBookName() + "   Author: " + book.getBookAuthor()+"   Issued Date: "+book.getBorrowDate()+"   Return Date: "+book.getReturnDate()+"   Fine: "+student.getFine());
+                        System.out.println("Name: "+book.getBookName() + "   Author: " + book.getBookAuthor()+"   Issued Date: "+LoanDates.format(book.getBorrowDay())+"   Return Date: "+LoanDates.format(book.getReturnDay())+"   Fine: "+fineEngine.outstanding(book, todaysDate));
                     }
                 }
                 else {
                     System.out.println("Your cart is empty");
                 }
-                System.out.println("Total fine pending: "+student.getFine());
+                System.out.println("Total fine pending: "+fineEngine.outstanding(student));
             }
             else {
                 System.out.println("Student not found");
@@ -138,27 +137,6 @@ public class Objectmodelpackage {
         }
     }
 
-    private static void calculateFine(Student student, String borrowDate, String returnDate) {
-
-        String todaysDate = "26/06/2021";
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        try {
-            LocalDate borDate = LocalDate.parse(returnDate, formatter);
-            LocalDate retDate = LocalDate.parse(todaysDate, formatter);
-            long days = ChronoUnit.DAYS.between(retDate, borDate);
-
-            if (days < 0) {
-                int numOfDays = (int) Math.abs(days);
-                System.out.println("numOfDays: "+numOfDays);
-                int totalFine = student.getFine() + numOfDays*perDayFine;
-                student.setFine(totalFine);
-            }
-        } catch (Exception e) {
-            System.out.println("Error parsing dates"+e.getMessage()+"\n"+e);
-        }
-    }
-
     private static void returnBook() {
         Scanner reader = new Scanner(System.in);
         System.out.println("Enter your studentId: ");
@@ -166,28 +144,24 @@ public class Objectmodelpackage {
             String accountId = reader.nextLine();
             Student student = findStudent(accountId);
             if(student!= null) {
-                ArrayList<Book> bookList = student.getIssuedBooks();
+                Collection<Book> bookList = student.getIssuedBooks();
                 System.out.println();
                 System.out.println("Welcome "+student.getStudentName());
                 if(bookList.size() > 0) {
                     System.out.println("Your issued Books-");
                     for(Book book: bookList) {
-                        calculateFine(student, book.getBorrowDate(), book.getReturnDate());
-                        System.out.println("Name: "+book.getBookName() + "   Author: " + book.getBookAuthor()+"   Issued Date: "+book.getBorrowDate()+"   Return Date: "+book.getReturnDate()+"   Fine: "+student.getFine());
+                        System.out.println("Name: "+book.getBookName() + "   Author: " + book.getBookAuthor()+"   Issued Date: "+LoanDates.format(book.getBorrowDay())+"   Return Date: "+LoanDates.format(book.getReturnDay())+"   Fine: "+fineEngine.outstanding(book, todaysDate));
                     }
                     System.out.println("Enter book name to return-");
                     try {
                         String returnBookName = reader.nextLine();
-                        boolean bookExits =false;
-                        Book foundBook = null;
-                        for(Book book: bookList) {
-                            if(book.getBookName().equalsIgnoreCase(returnBookName)) {
-                                bookExits = true;
-                                foundBook = book;
+                        Book foundBook = student.removeIssuedBook(returnBookName);
+                        if(foundBook != null) {
+                            overdue.remove(foundBook);
+                            int fine = fineEngine.accrue(student, foundBook, todaysDate);
+                            if(fine > 0) {
+                                System.out.println("Late return, fine added: "+fine);
                             }
-                        }
-                        if(bookExits) {
-                            bookList.remove(foundBook);
                             foundBook.setPendingReturn(false);
                             System.out.println("Book returned successfully");
                         }
@@ -282,19 +256,18 @@ public class Objectmodelpackage {
                 System.out.println("Access granted");
                 RulesResultSet resultSet = maxBookStudentCanIssue(bookLocation, student.getInstituteName(), student.getProgramEnrolledIn());
                 if(resultSet != null) {
-                    if(student.getIssuedBooks().size() < resultSet.getNumOfBooks()) {
-                        bookFound.setBorrowerId(student.getStudentId());
-
-                        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-                        Calendar c = Calendar.getInstance();
-                        c.setTime(new Date());
-                        bookFound.setBorrowDate(sdf.format(c.getTime()));
-                        c.add(Calendar.DATE, resultSet.getNumOfDays());
-                        bookFound.setReturnDate(sdf.format(c.getTime()));
+                    if(student.getIssuedCount() < resultSet.getNumOfBooks()) {
+                        if(!bookFound.tryClaim(student.getStudentId())) {
+                            System.out.println("Book was issued at another desk. Please try again");
+                            return;
+                        }
 
-                        bookFound.setPendingReturn(true);
+                        int today = LoanDates.today();
+                        bookFound.setBorrowDay(today);
+                        bookFound.setReturnDay(today + resultSet.getNumOfDays());
 
                         student.addBookToIssueList(bookFound);
+                        overdue.add(bookFound);
 
                         System.out.println("Book Issued");
                     }
@@ -326,29 +299,18 @@ public class Objectmodelpackage {
     }
 
     private static Student findStudent(String id) {
-        for(Student student: students) {
-            if(student.getStudentId().equals(id)) {
-                return student;
-            }
-        }
-        return null;
+        return students.find(id);
     }
 
     private static Book checkBookAvailable(Library library, String getBookName) {
-        outOfStock = false;
-        for(Books books : booksArrayList) {
-            for(Book book : books.getBooks()) {
-                if(book.getBookName().equalsIgnoreCase(getBookName)) {
-                    if(!book.isPendingReturn()) {
-                        return book;
-                    }
-                    else {
-                        outOfStock = true;
-                    }
-                }
-            }
+        Books books = library.findBooksCollectionIgnoreCase(getBookName);
+        if(books == null) {
+            outOfStock = false;
+            return null;
         }
-        return null;
+        Book book = books.isOutOfStock() ? null : books.findFreeCopy(getBookName);
+        outOfStock = book == null;
+        return book;
     }
 
     private static void displayAllBooks(Library comsatsLibrary) {
@@ -357,7 +319,7 @@ public class Objectmodelpackage {
             for(Book book : books.getBooks()) {
                 System.out.print("Book Name:"+book.getBookName() + "\nAuthor:" + book.getBookAuthor());
                 if(book.isPendingReturn()) {
-                    System.out.println("\nAvailable: no" + "   Borrower Id:" + book.getBorrowerId() + "   Issue Date:"+book.getBorrowDate() +"   Return Date:"+book.getReturnDate()+"\n");
+                    System.out.println("\nAvailable: no" + "   Borrower Id:" + book.getBorrowerId() + "   Issue Date:"+LoanDates.format(book.getBorrowDay()) +"   Return Date:"+LoanDates.format(book.getReturnDay())+"\n");
                 }
                 else {
                     System.out.println("\nAvailable: yes\n");
@@ -377,24 +339,7 @@ public class Objectmodelpackage {
         book.setPendingReturn(false);
 
 
-        Book foundBook = checkBookAvailable(library, bookName);
-        if(foundBook != null) {
-            Books books = library.findBooksCollection(bookName);
-            if(books != null) {
-                Book newBook = new Book(foundBook);
-                books.addBookToList(newBook);
-                books.setNumOfCopies(books.getNumOfCopies()+1);
-            }
-            else {
-                System.out.println("Sorry but there's a bug");
-            }
-        }
-        else {
-            Books books = new Books();
-            books.setNumOfCopies(1);
-            books.addBookToList(book);
-            library.addBookToLibrary(books);
-        }
+        library.addCopy(book);
     }
 
 
@@ -406,12 +351,16 @@ public class Objectmodelpackage {
             System.out.println("Enter the Program of Student [UG,PG,PHD]: ");
             String program=scan.nextLine();
             Student student=new Student("COMSATS",name,id,program);
-            student.addStudent();
-            students.add(student);   
+            if(students.register(student)) {
+                student.addStudent();
+            }
+            else {
+                System.out.println("A student with this Id already exists");
+            }
     }
 
-    private static void printStudentList(ArrayList<Student> students) {
-        for(Student student : students) {
+    private static void printStudentList(MemberRegistry students) {
+        for(Student student : students.getStudents()) {
             System.out.println("Student Detail\nInstitute: "+student.getInstituteName() + "\tStudent Name: " + student.getStudentName() + "\nStudent ID: " + student.getStudentId() + "\tProgram(PG/UG/PHD): " + student.getProgramEnrolledIn()+"\n");
         }
     }
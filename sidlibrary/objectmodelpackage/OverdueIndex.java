@@ -0,0 +1,77 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Loans on issue, bucketed by due epoch-day. A loan is overdue on day D once
+ * D is past its due day, matching FineEngine. Empty buckets are dropped, so
+ * queries cost O(log buckets) plus the size of the answer rather than a walk
+ * over every member's loans.
+ */
+public class OverdueIndex {
+    private final TreeMap<Integer, LinkedHashSet<Book>> byDueDay = new TreeMap<>();
+    private int size;
+
+    // Indexes the copy under its current return day; copies without one are ignored
+    public synchronized boolean add(Book copy) {
+        int dueDay = copy.getReturnDay();
+        if (dueDay == LoanDates.NO_DATE) return false;
+        LinkedHashSet<Book> bucket = byDueDay.get(dueDay);
+        if (bucket == null) {
+            bucket = new LinkedHashSet<>();
+            byDueDay.put(dueDay, bucket);
+        }
+        if (!bucket.add(copy)) return false;
+        size++;
+        return true;
+    }
+
+    // Must be called before the copy's return day changes
+    public synchronized boolean remove(Book copy) {
+        LinkedHashSet<Book> bucket = byDueDay.get(copy.getReturnDay());
+        if (bucket == null || !bucket.remove(copy)) return false;
+        if (bucket.isEmpty()) {
+            byDueDay.remove(copy.getReturnDay());
+        }
+        size--;
+        return true;
+    }
+
+    // Moves an indexed copy to a new due day, e.g. after a renewal
+    public synchronized void reschedule(Book copy, int newDueDay) {
+        boolean indexed = remove(copy);
+        copy.setReturnDay(newDueDay);
+        if (indexed) {
+            add(copy);
+        }
+    }
+
+    // Every loan due before asOfDay, earliest due first
+    public synchronized List<Book> overdueAsOf(int asOfDay) {
+        List<Book> overdue = new ArrayList<>();
+        for (LinkedHashSet<Book> bucket : byDueDay.headMap(asOfDay, false).values()) {
+            overdue.addAll(bucket);
+        }
+        return overdue;
+    }
+
+    // Loans whose first overdue day is the given day, i.e. due the day before
+    public synchronized List<Book> becameOverdueOn(int day) {
+        LinkedHashSet<Book> bucket = byDueDay.get(day - 1);
+        return bucket == null ? new ArrayList<Book>() : new ArrayList<>(bucket);
+    }
+
+    public synchronized int countOverdueAsOf(int asOfDay) {
+        int count = 0;
+        for (Map.Entry<Integer, LinkedHashSet<Book>> entry : byDueDay.headMap(asOfDay, false).entrySet()) {
+            count += entry.getValue().size();
+        }
+        return count;
+    }
+
+    public synchronized int size() { return size; }
+}
@@ -0,0 +1,124 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Trie over lowercased strings where every node keeps its TOP_N heaviest
+ * completions, so a completion request is a walk down the prefix and a copy
+ * of one short list. Weights only grow (a copy is added), so an entry can
+ * enter a node's list but is never pushed out by its own update.
+ */
+public class PrefixIndex {
+    public static final int TOP_N = 10;
+
+    private final HashMap<String, Integer> entryIds = new HashMap<>();
+    private final ArrayList<String> texts = new ArrayList<>();
+    private int[] weights = new int[16];
+    private final Node root = new Node();
+
+    // Adds weight to the entry for this text, inserting it the first time
+    public void add(String text, int weight) {
+        if (text == null) return;
+        String key = text.toLowerCase();
+        Integer existing = entryIds.get(key);
+        int entryId;
+        if (existing == null) {
+            entryId = texts.size();
+            texts.add(text);
+            if (entryId == weights.length) {
+                weights = Arrays.copyOf(weights, entryId * 2);
+            }
+            entryIds.put(key, entryId);
+        } else {
+            entryId = existing;
+        }
+        weights[entryId] += weight;
+
+        Node node = root;
+        offer(node, entryId);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.child(key.charAt(i), true);
+            offer(node, entryId);
+        }
+    }
+
+    // Heaviest completions of the prefix, at most min(limit, TOP_N)
+    public List<String> complete(String prefix, int limit) {
+        List<String> completions = new ArrayList<>();
+        if (prefix == null) return completions;
+        String key = prefix.toLowerCase();
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i), false);
+        }
+        if (node == null) return completions;
+        for (int i = 0; i < node.topSize && i < limit; i++) {
+            completions.add(texts.get(node.top[i]));
+        }
+        return completions;
+    }
+
+    public int getWeight(String text) {
+        Integer entryId = text == null ? null : entryIds.get(text.toLowerCase());
+        return entryId == null ? 0 : weights[entryId];
+    }
+
+    private void offer(Node node, int entryId) {
+        int at = -1;
+        for (int i = 0; i < node.topSize; i++) {
+            if (node.top[i] == entryId) {
+                at = i;
+                break;
+            }
+        }
+        if (at < 0) {
+            if (node.topSize < TOP_N) {
+                at = node.topSize++;
+            } else if (heavier(entryId, node.top[TOP_N - 1])) {
+                at = TOP_N - 1;
+            } else {
+                return;
+            }
+            node.top[at] = entryId;
+        }
+        while (at > 0 && heavier(node.top[at], node.top[at - 1])) {
+            int swap = node.top[at - 1];
+            node.top[at - 1] = node.top[at];
+            node.top[at] = swap;
+            at--;
+        }
+    }
+
+    private boolean heavier(int a, int b) {
+        if (weights[a] != weights[b]) return weights[a] > weights[b];
+        return a < b;
+    }
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private final int[] top = new int[TOP_N];
+        private int topSize;
+
+        Node child(char c, boolean create) {
+            int at = Arrays.binarySearch(keys, c);
+            if (at >= 0) return children[at];
+            if (!create) return null;
+            int insert = -at - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newKeys[insert] = c;
+            newChildren[insert] = new Node();
+            System.arraycopy(keys, insert, newKeys, insert + 1, keys.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            keys = newKeys;
+            children = newChildren;
+            return children[insert];
+        }
+    }
+}
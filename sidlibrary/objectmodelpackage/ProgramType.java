@@ -0,0 +1,21 @@
+package sidlibrary.objectmodelpackage;
+
+/**
+ * Programs a student can be enrolled in, used to index borrowing rules
+ */
+public enum ProgramType {
+    UG,
+    PG,
+    PHD,
+    OTHER;
+
+    public static ProgramType of(String programEnrolledIn) {
+        if (programEnrolledIn == null) return OTHER;
+        switch (programEnrolledIn) {
+            case "UG": return UG;
+            case "PG": return PG;
+            case "PHD": return PHD;
+            default: return OTHER;
+        }
+    }
+}
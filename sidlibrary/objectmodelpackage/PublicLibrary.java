@@ -28,6 +28,7 @@ public class PublicLibrary extends Library {
     public boolean hasCommunityAccess() { return communityAccess; }
     public void setCommunityAccess(boolean communityAccess) { 
         this.communityAccess = communityAccess; 
+        invalidateRules();
     }
     public int getMembershipFee() { return membershipFee; }
     public void setMembershipFee(int membershipFee) { 
@@ -44,14 +45,14 @@ public class PublicLibrary extends Library {
 
     // Override methods with Public Library-specific behavior
     @Override
-    public RulesResultSet comsatsRules(String instituteName, String programEnrolledIn) {
+    protected RulesResultSet buildRules(boolean comsatsStudent, ProgramType program) {
         // Public libraries have different rules - more lenient
-        if (instituteName.equals("COMSATS") || communityAccess) {
+        if (comsatsStudent || communityAccess) {
             // Public libraries allow more books and longer periods
-            switch (programEnrolledIn) {
-                case "UG": return new RulesResultSet(7, 15);
-                case "PG": return new RulesResultSet(5, 10);
-                case "PHD": return new RulesResultSet(3, 8);
+            switch (program) {
+                case UG: return new RulesResultSet(7, 15);
+                case PG: return new RulesResultSet(5, 10);
+                case PHD: return new RulesResultSet(3, 8);
                 default: return new RulesResultSet(5, 12);
             }
         }
@@ -65,6 +66,12 @@ public class PublicLibrary extends Library {
         return memberId != null && !memberId.isEmpty();
     }
 
+    // With community access anyone holding a valid member ID belongs, card or not
+    @Override
+    public boolean isMember(Student student) {
+        return (communityAccess && validateMembership(student.getStudentId())) || super.isMember(student);
+    }
+
     @Override
     public double calculateMembershipFee(String memberType) {
         // Public libraries may have different fee structure
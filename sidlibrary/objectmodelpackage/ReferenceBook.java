@@ -8,29 +8,41 @@ import java.util.List;
  * Reference books cannot be borrowed but can be reserved for in-library use
  */
 public class ReferenceBook extends Book implements Borrowable, Reservable, Searchable {
-    private String referenceType; // Dictionary, Encyclopedia, Atlas, etc.
-    private List<String> reservationQueue;
+    private ReservationQueue reservationQueue;
     private static final int REFERENCE_MAX_DAYS = 3; // Very short period
+    // Boost per CatalogSearch field: title, author, reference type, edition
+    static final double[] RELEVANCE_WEIGHTS = {12.0, 5.0, 8.0, 0.0};
 
     public ReferenceBook(String bookName, String bookAuthor, String referenceType) {
-        super(bookName, bookAuthor);
-        this.referenceType = referenceType;
-        this.reservationQueue = new ArrayList<>();
+        super(TitleMetadata.forReferenceBook(bookName, bookAuthor, referenceType));
+        this.reservationQueue = new ReservationQueue();
     }
 
     public ReferenceBook(ReferenceBook refBook) {
         super(refBook);
-        this.referenceType = refBook.getReferenceType();
-        this.reservationQueue = new ArrayList<>(refBook.getReservationQueue());
+        this.reservationQueue = new ReservationQueue(refBook.reservationQueue);
     }
 
     public ReferenceBook() {
         super();
-        this.reservationQueue = new ArrayList<>();
+        this.reservationQueue = new ReservationQueue();
     }
 
-    public String getReferenceType() { return referenceType; }
-    public void setReferenceType(String referenceType) { this.referenceType = referenceType; }
+    private ReferenceBook(TitleMetadata metadata) {
+        super(metadata);
+        this.reservationQueue = new ReservationQueue();
+    }
+
+    @Override
+    protected Book newCopy() {
+        return new ReferenceBook(getMetadata());
+    }
+
+    // Dictionary, Encyclopedia, Atlas, etc.
+    public String getReferenceType() { return getMetadata().getReferenceType(); }
+    public void setReferenceType(String referenceType) {
+        setMetadata(getMetadata().withReferenceType(referenceType));
+    }
 
     // Borrowable interface implementation (limited for reference books)
     @Override
@@ -39,7 +51,7 @@ public class ReferenceBook extends Book implements Borrowable, Reservable, Searc
         return !isPendingReturn() && 
                borrowerId != null && 
                !borrowerId.isEmpty() &&
-               reservationQueue.isEmpty();
+               !isReserved();
     }
 
     @Override
@@ -66,41 +78,48 @@ public class ReferenceBook extends Book implements Borrowable, Reservable, Searc
         return daysOverdue * 25.0;
     }
 
-    // Reservable interface implementation
+    // Reservable interface implementation. Once the copy is in a Books collection
+    // the title's queue there is used, so every copy of the title shares it;
+    // a copy on its own keeps a queue of its own.
     @Override
     public boolean reserve(String borrowerId) {
+        if (getOwner() != null) return getOwner().reserve(borrowerId);
         if (borrowerId == null || borrowerId.isEmpty()) return false;
-        if (!reservationQueue.contains(borrowerId)) {
-            reservationQueue.add(borrowerId);
-            return true;
-        }
-        return false;
+        // The current borrower can't queue for the copy they already have
+        if (isPendingReturn() && borrowerId.equals(getBorrowerId())) return false;
+        return reservationQueue.add(borrowerId);
     }
 
     @Override
     public boolean cancelReservation(String borrowerId) {
+        if (getOwner() != null) return getOwner().cancelReservation(borrowerId);
         return reservationQueue.remove(borrowerId);
     }
 
+    // Read-only; the same list is returned until the queue changes
     @Override
     public List<String> getReservationQueue() {
-        return new ArrayList<>(reservationQueue);
+        if (getOwner() != null) return getOwner().getReservationQueue();
+        return reservationQueue.snapshot();
     }
 
     @Override
     public boolean isReserved() {
+        if (getOwner() != null) return getOwner().isReserved();
         return !reservationQueue.isEmpty();
     }
 
     @Override
     public String getNextReserver() {
-        return reservationQueue.isEmpty() ? null : reservationQueue.get(0);
+        if (getOwner() != null) return getOwner().getNextReserver();
+        return reservationQueue.peek();
     }
 
     // Searchable interface implementation
     @Override
     public boolean matches(String query) {
         if (query == null) return false;
+        String referenceType = getReferenceType();
         String lowerQuery = query.toLowerCase();
         return getBookName().toLowerCase().contains(lowerQuery) ||
                getBookAuthor().toLowerCase().contains(lowerQuery) ||
@@ -109,23 +128,26 @@ public class ReferenceBook extends Book implements Borrowable, Reservable, Searc
 
     @Override
     public double getRelevanceScore(String query) {
-        if (!matches(query)) return 0.0;
+        if (query == null) return 0.0;
+        String referenceType = getReferenceType();
         double score = 0.0;
         String lowerQuery = query.toLowerCase();
-        if (getBookName().toLowerCase().contains(lowerQuery)) score += 12.0;
-        if (getBookAuthor().toLowerCase().contains(lowerQuery)) score += 5.0;
-        if (referenceType != null && referenceType.toLowerCase().contains(lowerQuery)) score += 8.0;
+        if (getBookName().toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.TITLE];
+        if (getBookAuthor().toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.AUTHOR];
+        if (referenceType != null && referenceType.toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.DETAIL];
         return score;
     }
 
     @Override
     public String getSearchableContent() {
+        String referenceType = getReferenceType();
         return getBookName() + " " + getBookAuthor() + " " + 
                (referenceType != null ? referenceType : "");
     }
 
     @Override
     public void addBook() {
+        String referenceType = getReferenceType();
         System.out.println("Reference book added: " + getBookName() + ", " + getBookAuthor() + 
                           ", Type: " + referenceType);
     }
@@ -0,0 +1,71 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * First-come queue of borrower IDs. The linked hash set keeps arrival order
+ * and makes the duplicate check, cancel and head lookup O(1). snapshot() hands
+ * out a read-only list that is only rebuilt after the queue changes.
+ */
+public class ReservationQueue {
+    private final LinkedHashSet<String> reservers = new LinkedHashSet<>();
+    private List<String> snapshot = Collections.emptyList();
+    private boolean snapshotStale;
+
+    public ReservationQueue() {}
+
+    public ReservationQueue(ReservationQueue other) {
+        reservers.addAll(other.snapshot());
+        snapshotStale = true;
+    }
+
+    // False if the ID is already queued
+    public synchronized boolean add(String borrowerId) {
+        if (!reservers.add(borrowerId)) return false;
+        snapshotStale = true;
+        return true;
+    }
+
+    public synchronized boolean remove(String borrowerId) {
+        if (!reservers.remove(borrowerId)) return false;
+        snapshotStale = true;
+        return true;
+    }
+
+    public synchronized boolean contains(String borrowerId) {
+        return reservers.contains(borrowerId);
+    }
+
+    public synchronized String peek() {
+        return reservers.isEmpty() ? null : reservers.iterator().next();
+    }
+
+    public synchronized String poll() {
+        if (reservers.isEmpty()) return null;
+        Iterator<String> it = reservers.iterator();
+        String head = it.next();
+        it.remove();
+        snapshotStale = true;
+        return head;
+    }
+
+    public synchronized boolean isEmpty() {
+        return reservers.isEmpty();
+    }
+
+    public synchronized int size() {
+        return reservers.size();
+    }
+
+    public synchronized List<String> snapshot() {
+        if (snapshotStale) {
+            snapshot = Collections.unmodifiableList(new ArrayList<>(reservers));
+            snapshotStale = false;
+        }
+        return snapshot;
+    }
+}
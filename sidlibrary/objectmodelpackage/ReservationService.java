@@ -0,0 +1,177 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reservations across every Reservable item, indexed by member so listing or
+ * cancelling a member's reservations never walks other queues. When a copy
+ * comes back and its item has a queue, the copy is claimed for the first
+ * reserver and put on hold for HOLD_DAYS; holds not collected by then are
+ * released and passed to the next reserver. Every reservation is kept at
+ * title level: a copy that belongs to a Books collection, Reservable or not,
+ * is queued through that collection, so all copies of a title serve one queue.
+ */
+public class ReservationService {
+    public static final int HOLD_DAYS = 3;
+
+    private final HashMap<String, LinkedHashSet<Reservable>> reservationsByMember = new HashMap<>();
+    private final HashMap<String, LinkedHashSet<Hold>> holdsByMember = new HashMap<>();
+    private final HoldShelf shelf = new HoldShelf();
+
+    // A member already holding a copy of the item has nothing to wait for
+    public synchronized boolean reserve(Reservable item, String memberId) {
+        item = titleOf(item);
+        if (findHold(item, memberId) != null) return false;
+        if (!item.reserve(memberId)) return false;
+        index(reservationsByMember, memberId, item);
+        return true;
+    }
+
+    public synchronized boolean cancel(Reservable item, String memberId) {
+        item = titleOf(item);
+        if (!item.cancelReservation(memberId)) return false;
+        unindex(reservationsByMember, memberId, item);
+        return true;
+    }
+
+    // Cancels the member's queued reservations; holds already allocated are left alone
+    public synchronized int cancelAll(String memberId) {
+        LinkedHashSet<Reservable> items = reservationsByMember.remove(memberId);
+        if (items == null) return 0;
+        int cancelled = 0;
+        for (Reservable item : items) {
+            if (item.cancelReservation(memberId)) cancelled++;
+        }
+        return cancelled;
+    }
+
+    public synchronized List<Reservable> getReservations(String memberId) {
+        LinkedHashSet<Reservable> items = reservationsByMember.get(memberId);
+        return items == null ? Collections.<Reservable>emptyList() : new ArrayList<>(items);
+    }
+
+    public synchronized List<Hold> getHolds(String memberId) {
+        LinkedHashSet<Hold> holds = holdsByMember.get(memberId);
+        return holds == null ? Collections.<Hold>emptyList() : new ArrayList<>(holds);
+    }
+
+    /**
+     * Called once a copy is back on the shelf. If its item has reservers other
+     * than the member who just returned it, the copy is claimed for the first one
+     * and a hold expiring after HOLD_DAYS is returned; otherwise null.
+     */
+    public synchronized Hold onReturn(Book copy, String returnedBy, int today) {
+        Reservable item = itemFor(copy);
+        if (item == null) return null;
+        String next = nextReserver(item, returnedBy);
+        // A failed claim means the copy went out some other way; the queue is left as it was
+        if (next == null || !copy.tryClaim(next)) return null;
+        return placeHold(item, copy, next, today);
+    }
+
+    // Hands the member's held copy of the item over; the caller turns it into a loan
+    public synchronized Book collect(Reservable item, String memberId) {
+        item = titleOf(item);
+        Hold hold = findHold(item, memberId);
+        if (hold == null) return null;
+        removeHold(hold);
+        return hold.getCopy();
+    }
+
+    /**
+     * Drops holds whose last pickup day is before today. Each copy moves straight
+     * to the next reserver's hold without going back on the shelf, so a checkout
+     * can't take it in between; only a copy nobody is waiting for is released.
+     */
+    public synchronized List<Hold> expireHolds(int today) {
+        List<Hold> expired = shelf.expire(today);
+        for (Hold hold : expired) {
+            unindex(holdsByMember, hold.getMemberId(), hold);
+            Book copy = hold.getCopy();
+            String next = nextReserver(hold.getItem(), hold.getMemberId());
+            if (next == null) {
+                copy.release();
+            } else {
+                copy.setBorrowerId(next);
+                placeHold(hold.getItem(), copy, next, today);
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int getHoldCount() {
+        return shelf.size();
+    }
+
+    protected Reservable itemFor(Book copy) {
+        if (copy.getOwner() != null) return copy.getOwner();
+        return copy instanceof Reservable ? (Reservable) copy : null;
+    }
+
+    // A copy reserved directly stands for its whole title
+    private Reservable titleOf(Reservable item) {
+        if (item instanceof Book && ((Book) item).getOwner() != null) return ((Book) item).getOwner();
+        return item;
+    }
+
+    // Caller has already put the copy on loan to the member
+    private Hold placeHold(Reservable item, Book copy, String memberId, int today) {
+        item.cancelReservation(memberId);
+        unindex(reservationsByMember, memberId, item);
+        // A hold isn't a loan yet; collect sets the dates and nothing accrues meanwhile
+        copy.setBorrowDay(LoanDates.NO_DATE);
+        copy.setReturnDay(LoanDates.NO_DATE);
+        copy.setAccruedThroughDay(LoanDates.NO_DATE);
+        Hold hold = new Hold(item, copy, memberId, today + HOLD_DAYS);
+        index(holdsByMember, memberId, hold);
+        shelf.add(hold);
+        return hold;
+    }
+
+    // First reserver in line other than the given member, or null
+    private static String nextReserver(Reservable item, String skipped) {
+        String next = item.getNextReserver();
+        if (next == null || !next.equals(skipped)) return next;
+        for (String memberId : item.getReservationQueue()) {
+            if (!memberId.equals(skipped)) return memberId;
+        }
+        return null;
+    }
+
+    private Hold findHold(Reservable item, String memberId) {
+        LinkedHashSet<Hold> holds = holdsByMember.get(memberId);
+        if (holds == null) return null;
+        for (Hold hold : holds) {
+            if (hold.getItem() == item) return hold;
+        }
+        return null;
+    }
+
+    private void removeHold(Hold hold) {
+        unindex(holdsByMember, hold.getMemberId(), hold);
+        shelf.remove(hold);
+    }
+
+    private static <K, V> void index(Map<K, LinkedHashSet<V>> map, K key, V value) {
+        LinkedHashSet<V> values = map.get(key);
+        if (values == null) {
+            values = new LinkedHashSet<>();
+            map.put(key, values);
+        }
+        values.add(value);
+    }
+
+    private static <K, V> void unindex(Map<K, LinkedHashSet<V>> map, K key, V value) {
+        LinkedHashSet<V> values = map.get(key);
+        if (values == null) return;
+        values.remove(value);
+        if (values.isEmpty()) {
+            map.remove(key);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package sidlibrary.objectmodelpackage;
 
+// Immutable so one instance per (library, program) can be shared by every issue
 public class RulesResultSet {
-    private int numOfBooks;
-    private int numOfDays;
+    private final int numOfBooks;
+    private final int numOfDays;
 
     public RulesResultSet(int numOfBooks, int numOfDays) {
         this.numOfBooks = numOfBooks;
@@ -10,8 +11,6 @@ public class RulesResultSet {
     }
 
     public int getNumOfBooks() { return numOfBooks; }
-    public void setNumOfBooks(int numOfBooks) { this.numOfBooks = numOfBooks; }
 
     public int getNumOfDays() { return numOfDays; }
-    public void setNumOfDays(int numOfDays) { this.numOfDays = numOfDays; }
 }
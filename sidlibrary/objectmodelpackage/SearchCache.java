@@ -0,0 +1,122 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache in front of a library's CatalogSearch. Every entry
+ * remembers the catalogue version it was computed at, and an entry from an
+ * older version counts as a miss, so results are never stale after
+ * addBookToLibrary or a copy addition. Available-only queries are not cached:
+ * availability changes on every issue and return without a version bump.
+ * Cached lists are shared between callers, so they are handed out read-only.
+ */
+public class SearchCache {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final Library library;
+    private final int capacity;
+    private final LinkedHashMap<String, CachedResult> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public SearchCache(Library library) {
+        this(library, DEFAULT_CAPACITY);
+    }
+
+    public SearchCache(Library library, int capacity) {
+        this.library = library;
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                if (size() > SearchCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public SearchPage topK(String query, int k) {
+        return topK(query, k, null);
+    }
+
+    public SearchPage topK(String query, int k, SearchHit after) {
+        String key = "topK|" + k + "|" + (after == null ? "" : after.getScore() + ":" + after.getTitleId()) + "|" + query;
+        long version = library.getCatalogVersion();
+        SearchPage page = (SearchPage) lookup(key, version);
+        if (page == null) {
+            page = library.getCatalogSearch().topK(query, k, after);
+            store(key, version, page);
+        }
+        return page;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Book> searchSubstring(String query) {
+        String key = "substring|" + query;
+        long version = library.getCatalogVersion();
+        List<Book> result = (List<Book>) lookup(key, version);
+        if (result == null) {
+            result = Collections.unmodifiableList(library.getCatalogSearch().searchSubstring(query));
+            store(key, version, result);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Book> search(String query) {
+        String key = "words|" + query;
+        long version = library.getCatalogVersion();
+        List<Book> result = (List<Book>) lookup(key, version);
+        if (result == null) {
+            result = Collections.unmodifiableList(library.getCatalogSearch().search(query));
+            store(key, version, result);
+        }
+        return result;
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private synchronized Object lookup(String key, long version) {
+        CachedResult entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            hits++;
+            return entry.value;
+        }
+        if (entry != null) {
+            entries.remove(key);
+        }
+        misses++;
+        return null;
+    }
+
+    // A result computed against an older version than a newer cached one is dropped
+    private synchronized void store(String key, long version, Object value) {
+        CachedResult current = entries.get(key);
+        if (current != null && current.version > version) return;
+        entries.put(key, new CachedResult(version, value));
+    }
+
+    private static final class CachedResult {
+        final long version;
+        final Object value;
+
+        CachedResult(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+}
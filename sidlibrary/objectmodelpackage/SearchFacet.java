@@ -0,0 +1,35 @@
+package sidlibrary.objectmodelpackage;
+
+/**
+ * Attributes CatalogSearch can count hits by
+ */
+public enum SearchFacet {
+    GENRE,
+    SUBJECT,
+    EDITION,
+    FORMAT,
+    REFERENCE_TYPE,
+    BOOK_TYPE;
+
+    // The title's value for this facet, or null if its type does not carry one
+    public String valueOf(Book book) {
+        TitleMetadata metadata = book.getMetadata();
+        switch (this) {
+            case GENRE: return metadata.getGenre();
+            case SUBJECT: return metadata.getSubject();
+            case EDITION: return metadata.getEdition();
+            case FORMAT: return metadata.getFormat();
+            case REFERENCE_TYPE: return metadata.getReferenceType();
+            case BOOK_TYPE: return bookType(book);
+            default: return null;
+        }
+    }
+
+    private static String bookType(Book book) {
+        if (book instanceof ReferenceBook) return "ReferenceBook";
+        if (book instanceof Novel) return "Novel";
+        if (book instanceof Textbook) return "Textbook";
+        if (book instanceof EBook) return "EBook";
+        return "Book";
+    }
+}
@@ -0,0 +1,40 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.Comparator;
+
+/**
+ * One ranked title from CatalogSearch. Hits order by score, highest first,
+ * then by title id, which is also how a hit works as a page cursor.
+ */
+public class SearchHit {
+    // Best hit first; consistent with ranksBefore and 0 only for the same title and score
+    public static final Comparator<SearchHit> RANK_ORDER =
+            Comparator.comparingDouble(SearchHit::getScore).reversed().thenComparingInt(SearchHit::getTitleId);
+
+    private int titleId;
+    private Book book;
+    private Books books;
+    private double score;
+
+    public SearchHit(int titleId, Book book, Books books, double score) {
+        this.titleId = titleId;
+        this.book = book;
+        this.books = books;
+        this.score = score;
+    }
+
+    public int getTitleId() { return titleId; }
+    public Book getBook() { return book; }
+    public Books getBooks() { return books; }
+    public double getScore() { return score; }
+
+    // True if this hit ranks ahead of the other one
+    public boolean ranksBefore(SearchHit other) {
+        return ranksBefore(score, titleId, other.score, other.titleId);
+    }
+
+    static boolean ranksBefore(double score, int titleId, double otherScore, int otherTitleId) {
+        if (score != otherScore) return score > otherScore;
+        return titleId < otherTitleId;
+    }
+}
@@ -0,0 +1,22 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of ranked hits. Pass getNextCursor() back to CatalogSearch.topK for
+ * the following page; it is null once the results are exhausted.
+ */
+public class SearchPage {
+    private List<SearchHit> hits;
+    private SearchHit nextCursor;
+
+    public SearchPage(List<SearchHit> hits, SearchHit nextCursor) {
+        this.hits = Collections.unmodifiableList(hits);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<SearchHit> getHits() { return hits; }
+    public SearchHit getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+}
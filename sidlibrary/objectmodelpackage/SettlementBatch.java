@@ -0,0 +1,134 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * End-of-day settlement: posts each member's late fees through FineEngine and
+ * bills membership fees for every library that counts them as a member
+ * (Library.isMember, which subclasses decide for themselves). The member
+ * registry is snapshotted and split into ranges processed on a fork-join pool.
+ * Each range only touches its own students and sums into long counters, so a
+ * parallel run gives exactly the totals a sequential run would on the same state.
+ */
+public class SettlementBatch {
+    private static final int LEAF_SIZE = 1024;
+    private static final int MEMBERS = 0;
+    private static final int FEE_CENTS = 1;
+    private static final int OVERDUE_LOANS = 2;
+    private static final int LATE_FEES = 3;
+    private static final int FIELDS = 4;
+
+    private final List<Library> libraries;
+    private final FineEngine fines;
+
+    public SettlementBatch(List<Library> libraries, FineEngine fines) {
+        this.libraries = new ArrayList<>(libraries);
+        this.fines = fines;
+    }
+
+    public List<SettlementTotals> run(MemberRegistry members) {
+        return run(members, ForkJoinPool.commonPool());
+    }
+
+    // One entry per library in constructor order, then the unattributed late fees
+    public List<SettlementTotals> run(MemberRegistry members, ForkJoinPool pool) {
+        Student[] students = members.getStudents().toArray(new Student[0]);
+        return toTotals(pool.invoke(new SettleRange(students, 0, students.length, fines.today())));
+    }
+
+    public List<SettlementTotals> runSequential(MemberRegistry members) {
+        Student[] students = members.getStudents().toArray(new Student[0]);
+        return toTotals(settle(students, 0, students.length, fines.today()));
+    }
+
+    private long[][] settle(Student[] students, int from, int to, int asOfDay) {
+        long[][] sums = new long[libraries.size() + 1][FIELDS];
+        for (int i = from; i < to; i++) {
+            Student student = students[i];
+            // calculateMembershipFee switches on the program, so an unset one is charged as OTHER
+            String program = student.getProgramEnrolledIn() == null
+                    ? ProgramType.OTHER.name() : student.getProgramEnrolledIn();
+            for (int lib = 0; lib < libraries.size(); lib++) {
+                Library library = libraries.get(lib);
+                if (library.isMember(student)) {
+                    sums[lib][MEMBERS]++;
+                    sums[lib][FEE_CENTS] += Math.round(library.calculateMembershipFee(program) * 100);
+                }
+            }
+            synchronized (student) {
+                for (Book book : student.getIssuedBooks()) {
+                    int amount = fines.accrue(student, book, asOfDay);
+                    if (amount > 0) {
+                        long[] row = sums[holdingLibrary(book)];
+                        row[OVERDUE_LOANS]++;
+                        row[LATE_FEES] += amount;
+                    }
+                }
+            }
+        }
+        return sums;
+    }
+
+    // Index of the library whose collection holds the copy, or the unattributed row
+    private int holdingLibrary(Book book) {
+        Books owner = book.getOwner();
+        if (owner != null) {
+            for (int lib = 0; lib < libraries.size(); lib++) {
+                if (libraries.get(lib).findBooksCollectionIgnoreCase(book.getBookName()) == owner) {
+                    return lib;
+                }
+            }
+        }
+        return libraries.size();
+    }
+
+    private List<SettlementTotals> toTotals(long[][] sums) {
+        List<SettlementTotals> totals = new ArrayList<>(sums.length);
+        for (int lib = 0; lib < sums.length; lib++) {
+            Library library = lib < libraries.size() ? libraries.get(lib) : null;
+            long[] row = sums[lib];
+            totals.add(new SettlementTotals(library, row[MEMBERS], row[FEE_CENTS], row[OVERDUE_LOANS], row[LATE_FEES]));
+        }
+        return totals;
+    }
+
+    private static void addInto(long[][] target, long[][] source) {
+        for (int lib = 0; lib < target.length; lib++) {
+            for (int field = 0; field < FIELDS; field++) {
+                target[lib][field] += source[lib][field];
+            }
+        }
+    }
+
+    private class SettleRange extends RecursiveTask<long[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final Student[] students;
+        private final int from;
+        private final int to;
+        private final int asOfDay;
+
+        SettleRange(Student[] students, int from, int to, int asOfDay) {
+            this.students = students;
+            this.from = from;
+            this.to = to;
+            this.asOfDay = asOfDay;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (to - from <= LEAF_SIZE) {
+                return settle(students, from, to, asOfDay);
+            }
+            int mid = (from + to) >>> 1;
+            SettleRange left = new SettleRange(students, from, mid, asOfDay);
+            left.fork();
+            long[][] sums = new SettleRange(students, mid, to, asOfDay).compute();
+            addInto(sums, left.join());
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package sidlibrary.objectmodelpackage;
+
+/**
+ * Amounts settled for one library by a SettlementBatch run. Membership fees are
+ * kept in cents so totals do not depend on the order they were added in.
+ * library is null for late fees on copies not held by any library in the run.
+ */
+public class SettlementTotals {
+    private Library library;
+    private long membersBilled;
+    private long membershipFeeCents;
+    private long overdueLoans;
+    private long lateFees;
+
+    public SettlementTotals(Library library, long membersBilled, long membershipFeeCents, long overdueLoans, long lateFees) {
+        this.library = library;
+        this.membersBilled = membersBilled;
+        this.membershipFeeCents = membershipFeeCents;
+        this.overdueLoans = overdueLoans;
+        this.lateFees = lateFees;
+    }
+
+    public Library getLibrary() { return library; }
+    public long getMembersBilled() { return membersBilled; }
+    public long getMembershipFeeCents() { return membershipFeeCents; }
+    public double getMembershipFees() { return membershipFeeCents / 100.0; }
+    public long getOverdueLoans() { return overdueLoans; }
+    public long getLateFees() { return lateFees; }
+
+    @Override
+    public String toString() {
+        return "SettlementTotals{" +
+                "library='" + (library == null ? "unattributed" : library.getInstituteName()) + '\'' +
+                ", membersBilled=" + membersBilled +
+                ", membershipFees=" + getMembershipFees() +
+                ", overdueLoans=" + overdueLoans +
+                ", lateFees=" + lateFees +
+                '}';
+    }
+}
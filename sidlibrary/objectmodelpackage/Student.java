@@ -1,7 +1,12 @@
 package sidlibrary.objectmodelpackage;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 public class Student extends Institute {
@@ -10,7 +15,10 @@ public class Student extends Institute {
     private String studentId;
     private String programEnrolledIn;
     private int fine;
-    private ArrayList<Book> issuedBooks;
+    // Active loans by copy (Book uses identity equality) and by normalized title,
+    // so issuing and returning never search or shift a list
+    private LinkedHashSet<Book> issuedBooks = new LinkedHashSet<>();
+    private HashMap<String, ArrayDeque<Book>> issuedByTitle = new HashMap<>();
     private boolean cmsatsLibraryCard;
 
     public Student() {}
@@ -20,7 +28,6 @@ public class Student extends Institute {
         this.studentName = studentName;
         this.studentId = studentId;
         this.programEnrolledIn = programEnrolledIn;
-        issuedBooks = new ArrayList<>();
     }
 
     public Student(String instituteName, String studentName, String studentId, String programEnrolledIn) {
@@ -29,7 +36,6 @@ public class Student extends Institute {
         this.studentId = studentId;
         this.programEnrolledIn = programEnrolledIn;
         this.cmsatsLibraryCard = false;
-        issuedBooks = new ArrayList<>();
     }
 
     public int issueCard(String instituteName) {
@@ -48,20 +54,66 @@ public class Student extends Institute {
     }
 
     public void addBookToIssueList(Book book) {
-        this.issuedBooks.add(book);
+        if (!issuedBooks.add(book)) return;
+        String key = titleKey(book);
+        ArrayDeque<Book> copies = issuedByTitle.get(key);
+        if (copies == null) {
+            copies = new ArrayDeque<>(1);
+            issuedByTitle.put(key, copies);
+        }
+        copies.add(book);
+    }
+
+    // Removes the earliest-issued copy of the title, or returns null if none is on loan
+    public Book removeIssuedBook(String bookName) {
+        if (bookName == null) return null;
+        String key = Library.normalizeTitle(bookName);
+        ArrayDeque<Book> copies = issuedByTitle.get(key);
+        if (copies == null) return null;
+        Book book = copies.poll();
+        if (copies.isEmpty()) {
+            issuedByTitle.remove(key);
+        }
+        issuedBooks.remove(book);
+        return book;
+    }
+
+    public boolean removeIssuedBook(Book book) {
+        if (!issuedBooks.remove(book)) return false;
+        String key = titleKey(book);
+        ArrayDeque<Book> copies = issuedByTitle.get(key);
+        copies.remove(book);
+        if (copies.isEmpty()) {
+            issuedByTitle.remove(key);
+        }
+        return true;
+    }
+
+    // Untitled copies (e.g. new Book()) share the null key, which HashMap allows
+    private static String titleKey(Book book) {
+        return book.getBookName() == null ? null : Library.normalizeTitle(book.getBookName());
     }
 
+    public Book findIssuedBook(String bookName) {
+        if (bookName == null) return null;
+        ArrayDeque<Book> copies = issuedByTitle.get(Library.normalizeTitle(bookName));
+        return copies == null ? null : copies.peek();
+    }
+
+    public int getIssuedCount() { return issuedBooks.size(); }
+
     public String getStudentName() { return studentName; }
 
     public String getStudentId() { return studentId; }
 
     public String getProgramEnrolledIn() { return programEnrolledIn; }
 
-    public ArrayList<Book> getIssuedBooks() { return issuedBooks; }
+    public Collection<Book> getIssuedBooks() { return Collections.unmodifiableCollection(issuedBooks); }
 
     public int getFine() { return fine; }
 
-    public void setFine(int fine) { this.fine = fine; }
+    // Written only by FineLedger, which keeps it equal to the member's ledger balance
+    void setFine(int fine) { this.fine = fine; }
 
     // File handling removed for SPF compatibility
     public void addStudent() {
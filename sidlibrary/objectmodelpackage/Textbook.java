@@ -7,34 +7,35 @@ import java.util.ArrayList;
  * Textbooks have limited borrow periods and cannot be renewed
  */
 public class Textbook extends Book implements Borrowable, Searchable {
-    private String subject;
-    private String edition;
-    private int maxBorrowDays;
     private static final int TEXTBOOK_MAX_DAYS = 14;
+    // Boost per CatalogSearch field: title, author, subject, edition
+    static final double[] RELEVANCE_WEIGHTS = {10.0, 5.0, 7.0, 0.0};
 
     public Textbook(String bookName, String bookAuthor, String subject, String edition) {
-        super(bookName, bookAuthor);
-        this.subject = subject;
-        this.edition = edition;
-        this.maxBorrowDays = TEXTBOOK_MAX_DAYS;
+        super(TitleMetadata.forTextbook(bookName, bookAuthor, subject, edition));
     }
 
     public Textbook(Textbook textbook) {
         super(textbook);
-        this.subject = textbook.getSubject();
-        this.edition = textbook.getEdition();
-        this.maxBorrowDays = textbook.getMaxBorrowDays();
     }
 
     public Textbook() {
         super();
-        this.maxBorrowDays = TEXTBOOK_MAX_DAYS;
     }
 
-    public String getSubject() { return subject; }
-    public void setSubject(String subject) { this.subject = subject; }
-    public String getEdition() { return edition; }
-    public void setEdition(String edition) { this.edition = edition; }
+    private Textbook(TitleMetadata metadata) {
+        super(metadata);
+    }
+
+    @Override
+    protected Book newCopy() {
+        return new Textbook(getMetadata());
+    }
+
+    public String getSubject() { return getMetadata().getSubject(); }
+    public void setSubject(String subject) { setMetadata(getMetadata().withSubject(subject)); }
+    public String getEdition() { return getMetadata().getEdition(); }
+    public void setEdition(String edition) { setMetadata(getMetadata().withEdition(edition)); }
 
     // Borrowable interface implementation
     @Override
@@ -56,7 +57,7 @@ public class Textbook extends Book implements Borrowable, Searchable {
 
     @Override
     public int getMaxBorrowDays() {
-        return maxBorrowDays;
+        return TEXTBOOK_MAX_DAYS;
     }
 
     @Override
@@ -70,6 +71,8 @@ public class Textbook extends Book implements Borrowable, Searchable {
     @Override
     public boolean matches(String query) {
         if (query == null) return false;
+        String subject = getSubject();
+        String edition = getEdition();
         String lowerQuery = query.toLowerCase();
         return getBookName().toLowerCase().contains(lowerQuery) ||
                getBookAuthor().toLowerCase().contains(lowerQuery) ||
@@ -79,17 +82,20 @@ public class Textbook extends Book implements Borrowable, Searchable {
 
     @Override
     public double getRelevanceScore(String query) {
-        if (!matches(query)) return 0.0;
+        if (query == null) return 0.0;
+        String subject = getSubject();
         double score = 0.0;
         String lowerQuery = query.toLowerCase();
-        if (getBookName().toLowerCase().contains(lowerQuery)) score += 10.0;
-        if (getBookAuthor().toLowerCase().contains(lowerQuery)) score += 5.0;
-        if (subject != null && subject.toLowerCase().contains(lowerQuery)) score += 7.0;
+        if (getBookName().toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.TITLE];
+        if (getBookAuthor().toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.AUTHOR];
+        if (subject != null && subject.toLowerCase().contains(lowerQuery)) score += RELEVANCE_WEIGHTS[CatalogSearch.DETAIL];
         return score;
     }
 
     @Override
     public String getSearchableContent() {
+        String subject = getSubject();
+        String edition = getEdition();
         return getBookName() + " " + getBookAuthor() + " " + 
                (subject != null ? subject : "") + " " + 
                (edition != null ? edition : "");
@@ -97,6 +103,8 @@ public class Textbook extends Book implements Borrowable, Searchable {
 
     @Override
     public void addBook() {
+        String subject = getSubject();
+        String edition = getEdition();
         System.out.println("Textbook added: " + getBookName() + ", " + getBookAuthor() + 
                           ", Subject: " + subject + ", Edition: " + edition);
     }
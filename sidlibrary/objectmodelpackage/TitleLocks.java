@@ -0,0 +1,45 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock striping keyed by normalized title. Operations on the same title
+ * always map to the same lock; different titles usually land on different
+ * stripes and run in parallel.
+ */
+public class TitleLocks {
+    private static final int DEFAULT_STRIPES = 64;
+    private final ReentrantLock[] stripes;
+
+    public TitleLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public TitleLocks(int stripeCount) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock lockFor(String bookName) {
+        return stripes[stripeIndex(bookName)];
+    }
+
+    // Callers holding several stripes must take them in ascending index order
+    public int stripeIndex(String bookName) {
+        int hash = bookName == null ? 0 : Library.normalizeTitle(bookName).hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+
+    public ReentrantLock getStripe(int index) {
+        return stripes[index];
+    }
+
+    public int getStripeCount() { return stripes.length; }
+}
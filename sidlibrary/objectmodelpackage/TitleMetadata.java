@@ -0,0 +1,84 @@
+package sidlibrary.objectmodelpackage;
+
+/**
+ * Immutable descriptive data for a title, shared by every copy of it.
+ * Type-specific fields are null (or 0) when they do not apply.
+ */
+public final class TitleMetadata {
+    static final TitleMetadata UNNAMED = new TitleMetadata(null, null);
+
+    private final String bookName;
+    private final String bookAuthor;
+    private final String genre;
+    private final String subject;
+    private final String edition;
+    private final String format;
+    private final long fileSize;
+    private final String referenceType;
+
+    public TitleMetadata(String bookName, String bookAuthor) {
+        this(bookName, bookAuthor, null, null, null, null, 0, null);
+    }
+
+    private TitleMetadata(String bookName, String bookAuthor, String genre, String subject,
+                          String edition, String format, long fileSize, String referenceType) {
+        this.bookName = bookName;
+        this.bookAuthor = bookAuthor;
+        this.genre = genre;
+        this.subject = subject;
+        this.edition = edition;
+        this.format = format;
+        this.fileSize = fileSize;
+        this.referenceType = referenceType;
+    }
+
+    public static TitleMetadata forNovel(String bookName, String bookAuthor, String genre) {
+        return new TitleMetadata(bookName, bookAuthor, genre, null, null, null, 0, null);
+    }
+
+    public static TitleMetadata forTextbook(String bookName, String bookAuthor, String subject, String edition) {
+        return new TitleMetadata(bookName, bookAuthor, null, subject, edition, null, 0, null);
+    }
+
+    public static TitleMetadata forEBook(String bookName, String bookAuthor, String format, long fileSize) {
+        return new TitleMetadata(bookName, bookAuthor, null, null, null, format, fileSize, null);
+    }
+
+    public static TitleMetadata forReferenceBook(String bookName, String bookAuthor, String referenceType) {
+        return new TitleMetadata(bookName, bookAuthor, null, null, null, null, 0, referenceType);
+    }
+
+    public String getBookName() { return bookName; }
+    public String getBookAuthor() { return bookAuthor; }
+    public String getGenre() { return genre; }
+    public String getSubject() { return subject; }
+    public String getEdition() { return edition; }
+    public String getFormat() { return format; }
+    public long getFileSize() { return fileSize; }
+    public String getReferenceType() { return referenceType; }
+
+    // Setters on a copy swap in a modified instance instead of mutating the shared one
+    public TitleMetadata withGenre(String genre) {
+        return new TitleMetadata(bookName, bookAuthor, genre, subject, edition, format, fileSize, referenceType);
+    }
+
+    public TitleMetadata withSubject(String subject) {
+        return new TitleMetadata(bookName, bookAuthor, genre, subject, edition, format, fileSize, referenceType);
+    }
+
+    public TitleMetadata withEdition(String edition) {
+        return new TitleMetadata(bookName, bookAuthor, genre, subject, edition, format, fileSize, referenceType);
+    }
+
+    public TitleMetadata withFormat(String format) {
+        return new TitleMetadata(bookName, bookAuthor, genre, subject, edition, format, fileSize, referenceType);
+    }
+
+    public TitleMetadata withFileSize(long fileSize) {
+        return new TitleMetadata(bookName, bookAuthor, genre, subject, edition, format, fileSize, referenceType);
+    }
+
+    public TitleMetadata withReferenceType(String referenceType) {
+        return new TitleMetadata(bookName, bookAuthor, genre, subject, edition, format, fileSize, referenceType);
+    }
+}
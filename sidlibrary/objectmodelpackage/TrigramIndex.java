@@ -0,0 +1,74 @@
+package sidlibrary.objectmodelpackage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Postings of title ids per three-character sequence of lowercased field
+ * text. Any title whose field contains a query must contain all of the
+ * query's trigrams, so intersecting their postings yields a small candidate
+ * set that the caller verifies with a plain contains().
+ */
+public class TrigramIndex {
+    private final HashMap<Long, IntPostings> postings = new HashMap<>();
+
+    public void add(int titleId, String lowerText) {
+        if (lowerText == null) return;
+        for (int i = 0; i + 3 <= lowerText.length(); i++) {
+            Long key = key(lowerText, i);
+            IntPostings list = postings.get(key);
+            if (list == null) {
+                list = new IntPostings();
+                postings.put(key, list);
+            }
+            list.add(titleId);
+        }
+    }
+
+    // Ids that contain every trigram of the query; null when the query is too short to filter on
+    public int[] candidates(String lowerQuery) {
+        List<IntPostings> lists = postingsFor(lowerQuery);
+        if (lists == null) return null;
+        if (lists.isEmpty()) return IntPostings.EMPTY;
+        int[] ids = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && ids.length > 0; i++) {
+            IntPostings list = lists.get(i);
+            int n = 0;
+            for (int id : ids) {
+                if (list.contains(id)) ids[n++] = id;
+            }
+            ids = Arrays.copyOf(ids, n);
+        }
+        return ids;
+    }
+
+    /**
+     * Postings of each distinct trigram of the query, rarest first, for callers
+     * that walk the first list and test the rest one id at a time so they can
+     * stop early. Empty when some trigram never occurs; null when the query is
+     * too short to filter on.
+     */
+    public List<IntPostings> postingsFor(String lowerQuery) {
+        if (lowerQuery.length() < 3) return null;
+        HashSet<Long> seen = new HashSet<>();
+        List<IntPostings> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= lowerQuery.length(); i++) {
+            Long key = key(lowerQuery, i);
+            if (!seen.add(key)) continue;
+            IntPostings list = postings.get(key);
+            if (list == null) return new ArrayList<>();
+            lists.add(list);
+        }
+        // Start from the rarest trigram so the running intersection stays small
+        lists.sort(Comparator.comparingInt(IntPostings::size));
+        return lists;
+    }
+
+    private static Long key(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+}
@@ -37,6 +37,7 @@ public class UniversityLibrary extends Library {
     public boolean hasResearchSection() { return researchSection; }
     public void setResearchSection(boolean researchSection) { 
         this.researchSection = researchSection; 
+        invalidateRules();
     }
     public ArrayList<String> getSpecialCollections() { 
         return new ArrayList<>(specialCollections); 
@@ -49,8 +50,8 @@ public class UniversityLibrary extends Library {
 
     // Override methods with University-specific behavior
     @Override
-    public RulesResultSet comsatsRules(String instituteName, String programEnrolledIn) {
-        RulesResultSet baseRules = super.comsatsRules(instituteName, programEnrolledIn);
+    protected RulesResultSet buildRules(boolean comsatsStudent, ProgramType program) {
+        RulesResultSet baseRules = super.buildRules(comsatsStudent, program);
         if (baseRules != null && researchSection) {
             // University libraries with research sections allow longer periods
             return new RulesResultSet(baseRules.getNumOfBooks(), 